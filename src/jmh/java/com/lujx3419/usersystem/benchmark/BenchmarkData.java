@@ -0,0 +1,21 @@
+package com.lujx3419.usersystem.benchmark;
+
+import com.lujx3419.usersystem.model.User;
+
+// Fixtures shared by the benchmarks
+final class BenchmarkData {
+
+    static final String PASSWORD = "benchmark-password";
+
+    private BenchmarkData() {}
+
+    static User user() {
+        User user = new User();
+        user.setId(42L);
+        user.setName("benchmark-user");
+        user.setAge(30);
+        user.setPassword("$2a$10$abcdefghijklmnopqrstuu");
+        user.setRole("USER");
+        return user;
+    }
+}
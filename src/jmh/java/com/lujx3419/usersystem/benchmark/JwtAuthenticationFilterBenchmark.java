@@ -0,0 +1,132 @@
+package com.lujx3419.usersystem.benchmark;
+
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.lujx3419.usersystem.common.JwtUtil;
+import com.lujx3419.usersystem.config.JwtAuthenticationFilter;
+import com.lujx3419.usersystem.model.User;
+import com.lujx3419.usersystem.repository.UserRepository;
+import com.lujx3419.usersystem.service.TokenDenylist;
+import com.lujx3419.usersystem.service.TokenVersionRegistry;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+
+/**
+ * Per-request cost of the JWT filter against mock requests, with the user lookup
+ * ({@code LOOKUP}) or the principal built from the claims ({@code STATELESS}).
+ * The user details service and the token version table answer from memory and no token is
+ * revoked, so only the filter's own work is measured.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JwtAuthenticationFilterBenchmark {
+
+    @Param({"LOOKUP", "STATELESS"})
+    private String mode;
+
+    private JwtAuthenticationFilter filter;
+    private MockHttpServletRequest authenticated;
+    private MockHttpServletRequest anonymous;
+    private MockHttpServletRequest invalidToken;
+    private final MockHttpServletResponse response = new MockHttpServletResponse();
+    private final FilterChain chain = (request, response) -> { };
+
+    @Setup
+    public void setUp() throws ServletException {
+        User user = BenchmarkData.user();
+        UserDetails details = org.springframework.security.core.userdetails.User.withUsername(user.getName())
+                .password(user.getPassword())
+                .authorities(AuthorityUtils.createAuthorityList(user.getRole()))
+                .build();
+        UserDetailsService userDetailsService = username -> details;
+
+        TokenVersionRegistry tokenVersions = new TokenVersionRegistry();
+        ReflectionTestUtils.setField(tokenVersions, "userRepository", tokenVersionRepository(user.getTokenVersion()));
+
+        JwtUtil jwtUtil = new JwtUtil();
+        filter = new JwtAuthenticationFilter();
+        ReflectionTestUtils.setField(filter, "jwtUtil", jwtUtil);
+        ReflectionTestUtils.setField(filter, "userDetailsService", userDetailsService);
+        ReflectionTestUtils.setField(filter, "tokenVersions", tokenVersions);
+        ReflectionTestUtils.setField(filter, "tokenDenylist", new TokenDenylist(100_000, 0.01));
+        ReflectionTestUtils.setField(filter, "stateless", "STATELESS".equals(mode));
+        ReflectionTestUtils.setField(filter, "meterRegistry", new SimpleMeterRegistry());
+        filter.afterPropertiesSet();
+
+        authenticated = request("Bearer " + jwtUtil.generateToken(user));
+        anonymous = request(null);
+        invalidToken = request("Bearer not.a.token");
+    }
+
+    @Benchmark
+    public Object authenticated() throws ServletException, IOException {
+        return filter(authenticated);
+    }
+
+    @Benchmark
+    public Object noToken() throws ServletException, IOException {
+        return filter(anonymous);
+    }
+
+    @Benchmark
+    public Object invalidToken() throws ServletException, IOException {
+        return filter(invalidToken);
+    }
+
+    private Object filter(MockHttpServletRequest request) throws ServletException, IOException {
+        try {
+            filter.doFilter(request, response, chain);
+            return SecurityContextHolder.getContext().getAuthentication();
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+
+    private static MockHttpServletRequest request(String authorization) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/users/me");
+        if (authorization != null) {
+            request.addHeader("Authorization", authorization);
+        }
+        return request;
+    }
+
+    // Repository stub that only knows the token version
+    private static UserRepository tokenVersionRepository(int tokenVersion) {
+        return (UserRepository) Proxy.newProxyInstance(UserRepository.class.getClassLoader(),
+                new Class<?>[] {UserRepository.class}, (proxy, method, args) -> {
+                    if (method.getName().equals("findTokenVersionById")) {
+                        return Optional.of(tokenVersion);
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+    }
+}
@@ -0,0 +1,80 @@
+package com.lujx3419.usersystem.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.lujx3419.usersystem.common.JwtUtil;
+import com.lujx3419.usersystem.model.User;
+
+/**
+ * Signing and reading tokens. Reads of the same token are served by the verified-token
+ * cache in {@link JwtUtil}, which is the common case for a client making repeated calls;
+ * the {@code *Uncached} variants read a token not seen before, so they pay for the HMAC check
+ * and parsing of a cache miss.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JwtUtilBenchmark {
+
+    private JwtUtil jwtUtil;
+    private User user;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        jwtUtil = new JwtUtil();
+        user = BenchmarkData.user();
+        token = jwtUtil.generateToken(user);
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return jwtUtil.generateToken(user);
+    }
+
+    @Benchmark
+    public String getUsernameFromToken() {
+        return jwtUtil.getUsernameFromToken(token);
+    }
+
+    @Benchmark
+    public Boolean validateToken() {
+        return jwtUtil.validateToken(token, user.getName());
+    }
+
+    @Benchmark
+    public String getUsernameFromTokenUncached(FreshToken fresh) {
+        return jwtUtil.getUsernameFromToken(fresh.token);
+    }
+
+    @Benchmark
+    public Boolean validateTokenUncached(FreshToken fresh) {
+        return jwtUtil.validateToken(fresh.token, user.getName());
+    }
+
+    // A new token for every call, signed outside the measured time
+    @State(Scope.Thread)
+    public static class FreshToken {
+        private String token;
+
+        @Setup(Level.Invocation)
+        public void next(JwtUtilBenchmark benchmark) {
+            token = benchmark.jwtUtil.generateToken(benchmark.user);
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.lujx3419.usersystem.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.lujx3419.usersystem.common.TooManyRequestsException;
+import com.lujx3419.usersystem.service.LoginRateLimiter;
+
+/**
+ * Overhead the rate limiter adds to a login, next to the password check it protects.
+ * {@code hotKey} has every thread hit one username and one address, so all compare-and-sets
+ * contend on the same buckets; {@code manyKeys} spreads the threads over many clients.
+ * The limits are high enough that these never reject; {@code rejected} measures the 429 path.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class LoginRateLimiterBenchmark {
+
+    private static final int KEYS = 10_000;
+
+    private LoginRateLimiter unlimited;
+    private LoginRateLimiter exhausted;
+    private String[] usernames;
+    private String[] addresses;
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next;
+    }
+
+    @Setup
+    public void setUp() {
+        unlimited = new LoginRateLimiter(true, Integer.MAX_VALUE, Integer.MAX_VALUE,
+                Integer.MAX_VALUE, Integer.MAX_VALUE, Integer.MAX_VALUE, Integer.MAX_VALUE, 100_000);
+        exhausted = new LoginRateLimiter(true, Integer.MAX_VALUE, Integer.MAX_VALUE, 1, 1, 1, 1, 100_000);
+        exhausted.recordFailedLogin("alice", "10.0.0.1");
+
+        usernames = new String[KEYS];
+        addresses = new String[KEYS];
+        for (int i = 0; i < KEYS; i++) {
+            usernames[i] = "user" + i;
+            addresses[i] = "10.0." + (i >> 8) + "." + (i & 0xff);
+        }
+    }
+
+    @Benchmark
+    public void hotKey() {
+        unlimited.checkLogin("alice", "10.0.0.1");
+    }
+
+    @Benchmark
+    public void manyKeys(Cursor cursor) {
+        int i = cursor.next;
+        cursor.next = (i + 1) % KEYS;
+        unlimited.checkLogin(usernames[i], addresses[i]);
+    }
+
+    @Benchmark
+    public Object rejected() {
+        try {
+            exhausted.checkLogin("alice", "10.0.0.1");
+            return null;
+        } catch (TooManyRequestsException e) {
+            return e;
+        }
+    }
+}
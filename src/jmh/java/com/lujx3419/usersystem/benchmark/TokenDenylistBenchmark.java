@@ -0,0 +1,77 @@
+package com.lujx3419.usersystem.benchmark;
+
+import java.lang.reflect.Proxy;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.lujx3419.usersystem.repository.RevokedTokenRepository;
+import com.lujx3419.usersystem.service.TokenDenylist;
+
+/**
+ * Cost of the revocation check the JWT filter makes on every request, as the denylist grows.
+ * All revoked tokens expire on the same day as the checked ones, so every check goes through
+ * that day's Bloom filter; {@code revoked} also pays the exact lookup behind it.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@State(Scope.Benchmark)
+public class TokenDenylistBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    private int revokedTokens;
+
+    private TokenDenylist denylist;
+    private long expiresAt;
+    private String activeToken;
+    private String revokedToken;
+
+    @Setup
+    public void setUp() {
+        denylist = new TokenDenylist(100_000, 0.01);
+        ReflectionTestUtils.setField(denylist, "revokedTokenRepository", repository());
+
+        expiresAt = System.currentTimeMillis() + TimeUnit.DAYS.toMillis(7);
+        for (int i = 0; i < revokedTokens; i++) {
+            revokedToken = UUID.randomUUID().toString();
+            denylist.revoke(revokedToken, 1L, expiresAt);
+        }
+        activeToken = UUID.randomUUID().toString();
+    }
+
+    @Benchmark
+    public boolean active() {
+        return denylist.isRevoked(activeToken, expiresAt);
+    }
+
+    @Benchmark
+    public boolean revoked() {
+        return denylist.isRevoked(revokedToken, expiresAt);
+    }
+
+    // Repository stub that accepts every write
+    private static RevokedTokenRepository repository() {
+        return (RevokedTokenRepository) Proxy.newProxyInstance(RevokedTokenRepository.class.getClassLoader(),
+                new Class<?>[] {RevokedTokenRepository.class}, (proxy, method, args) -> {
+                    if (method.getName().equals("insert") || method.getName().equals("deleteExpired")) {
+                        return 1;
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+    }
+}
@@ -0,0 +1,125 @@
+package com.lujx3419.usersystem.loadtest;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Test data: an admin, the seeded users and the sessions of those logged in up front.
+ */
+final class Fixture {
+
+    static final String PASSWORD = "load-password";
+    static final int PAGE_SIZE = 20;
+
+    private static final String ADMIN_NAME = "load_admin";
+    private static final String ADMIN_CODE = "ADMIN123";
+
+    // Logins are issued in waves no larger than this, to stay clear of the hashing queue limit
+    private static final int LOGIN_WAVE = 50;
+
+    private final HttpClient client;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final String baseUrl;
+    private final int userCount;
+    private String adminToken;
+    private final List<Session> sessions = new ArrayList<>();
+
+    Fixture(HttpClient client, String baseUrl, int userCount) {
+        this.client = client;
+        this.baseUrl = baseUrl;
+        this.userCount = userCount;
+    }
+
+    /**
+     * Create the admin and the users, then log in the first {@code sessionCount} users.
+     */
+    void seed(int sessionCount) throws IOException, InterruptedException {
+        // Against a reused instance the admin and users may exist already, which is fine
+        client.send(post("/users/register/admin", "{\"name\":\"" + ADMIN_NAME + "\",\"password\":\"" + PASSWORD
+                + "\",\"adminCode\":\"" + ADMIN_CODE + "\"}"), HttpResponse.BodyHandlers.discarding());
+        adminToken = login(ADMIN_NAME).join().token();
+
+        StringBuilder csv = new StringBuilder("name,password,age\n");
+        Random random = new Random(42);
+        for (int i = 0; i < userCount; i++) {
+            csv.append(userName(i)).append(',').append(PASSWORD).append(',').append(18 + random.nextInt(60)).append('\n');
+        }
+        JsonNode imported = send(HttpRequest.newBuilder(uri("/users/import"))
+                .header("Content-Type", "text/csv")
+                .header("Authorization", "Bearer " + adminToken)
+                .POST(HttpRequest.BodyPublishers.ofString(csv.toString()))
+                .build());
+        System.out.printf("Seeded %s users (%s failed)%n", imported.path("imported"), imported.path("failed"));
+
+        for (int from = 0; from < sessionCount; from += LOGIN_WAVE) {
+            List<CompletableFuture<Session>> wave = new ArrayList<>();
+            for (int i = from; i < Math.min(from + LOGIN_WAVE, sessionCount); i++) {
+                wave.add(login(userName(i)));
+            }
+            wave.forEach(session -> sessions.add(session.join()));
+        }
+        System.out.printf("Logged in %d sessions%n", sessions.size());
+    }
+
+    URI uri(String path) {
+        return URI.create(baseUrl + path);
+    }
+
+    Session randomSession(Random random) {
+        return sessions.get(random.nextInt(sessions.size()));
+    }
+
+    String adminToken() {
+        return adminToken;
+    }
+
+    int userCount() {
+        return userCount;
+    }
+
+    private CompletableFuture<Session> login(String name) {
+        HttpRequest request = post("/users/login", "{\"name\":\"" + name + "\",\"password\":\"" + PASSWORD + "\"}");
+        return client.sendAsync(request, HttpResponse.BodyHandlers.ofString()).thenApply(response -> {
+            JsonNode data = data(response.body());
+            return new Session(data.path("user").path("id").asLong(), name, data.path("token").asText());
+        });
+    }
+
+    private HttpRequest post(String path, String json) {
+        return HttpRequest.newBuilder(uri(path))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .build();
+    }
+
+    private JsonNode send(HttpRequest request) throws IOException, InterruptedException {
+        return data(client.send(request, HttpResponse.BodyHandlers.ofString()).body());
+    }
+
+    // The "data" of a successful ApiResponse
+    private JsonNode data(String body) {
+        try {
+            JsonNode response = objectMapper.readTree(body);
+            if (response.path("code").asInt() != 200) {
+                throw new IllegalStateException("Setup request failed: " + body);
+            }
+            return response.path("data");
+        } catch (IOException e) {
+            throw new IllegalStateException("Unexpected response: " + body, e);
+        }
+    }
+
+    private static String userName(int i) {
+        return "load_user_" + i;
+    }
+}
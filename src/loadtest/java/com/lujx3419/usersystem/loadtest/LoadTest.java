@@ -0,0 +1,220 @@
+package com.lujx3419.usersystem.loadtest;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.lujx3419.usersystem.UsersystemApplication;
+
+/**
+ * End-to-end load generator. Starts the application on the in-memory database (profile
+ * {@code embedded}) unless {@code --target} names a running instance, seeds users, then sends
+ * a weighted mix of requests at a fixed arrival rate (open model).
+ * <p>
+ * Latency is measured from the moment a request was due to be sent, not from when it was
+ * actually sent, so a slow server shows up as latency instead of silently lowering the load.
+ * Percentiles are printed and the full HDR histograms are written to {@code --out}.
+ */
+public final class LoadTest {
+
+    private LoadTest() {}
+
+    public static void main(String[] args) throws Exception {
+        LoadTestOptions options = LoadTestOptions.parse(args);
+        ConfigurableApplicationContext application = null;
+        String baseUrl = options.target;
+        if (baseUrl == null) {
+            application = startApplication(options);
+            baseUrl = "http://127.0.0.1:" + application.getEnvironment().getProperty("local.server.port");
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(options.clients);
+        HttpClient client = HttpClient.newBuilder()
+                .executor(executor)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+        try {
+            Fixture fixture = new Fixture(client, baseUrl, options.users);
+            fixture.seed(options.sessions);
+
+            Map<Operation, Stats> stats = run(options, client, fixture);
+            report(options, stats);
+        } finally {
+            executor.shutdownNow();
+            if (application != null) {
+                application.close();
+            }
+        }
+        System.exit(0);
+    }
+
+    private static ConfigurableApplicationContext startApplication(LoadTestOptions options) {
+        // DevTools would restart this main class in a new class loader; it only honours the system property
+        System.setProperty("spring.devtools.restart.enabled", "false");
+        List<String> args = new ArrayList<>(List.of(
+                "--server.port=0",
+                "--server.address=127.0.0.1",
+                "--management.server.port=0",
+                "--logging.level.root=WARN",
+                // Every virtual client logs in from the same address
+                "--usersystem.rate-limit.enabled=false"));
+        args.addAll(options.applicationArgs);
+        SpringApplication application = new SpringApplication(UsersystemApplication.class);
+        application.setAdditionalProfiles("embedded");
+        return application.run(args.toArray(String[]::new));
+    }
+
+    private static Map<Operation, Stats> run(LoadTestOptions options, HttpClient client, Fixture fixture) {
+        Map<Operation, Stats> stats = new EnumMap<>(Operation.class);
+        options.mix.keySet().forEach(operation -> stats.put(operation, new Stats()));
+        Operation[] wheel = wheel(options.mix);
+        Random random = new Random(7);
+        AtomicInteger inFlight = new AtomicInteger();
+
+        long interval = TimeUnit.SECONDS.toNanos(1) / options.rate;
+        long start = System.nanoTime();
+        long measureFrom = start + options.warmup.toNanos();
+        long end = measureFrom + options.duration.toNanos();
+        System.out.printf("Running %d req/s for %s after %s warmup%n", options.rate, options.duration, options.warmup);
+
+        for (long due = start; due < end; due += interval) {
+            long wait = due - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            Operation operation = wheel[random.nextInt(wheel.length)];
+            boolean measured = due >= measureFrom;
+            Stats operationStats = stats.get(operation);
+            if (inFlight.get() >= options.maxInFlight) {
+                if (measured) {
+                    operationStats.dropped.increment();
+                }
+                continue;
+            }
+
+            HttpRequest request = operation.request(fixture, random);
+            long dueAt = due;
+            inFlight.incrementAndGet();
+            client.sendAsync(request, HttpResponse.BodyHandlers.ofString()).whenComplete((response, error) -> {
+                long latency = System.nanoTime() - dueAt;
+                inFlight.decrementAndGet();
+                if (measured) {
+                    operationStats.record(latency, outcome(response, error));
+                }
+            });
+        }
+
+        // Let the requests still out complete, they belong to the measured window
+        long drainUntil = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (inFlight.get() > 0 && System.nanoTime() < drainUntil) {
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(50));
+        }
+        return stats;
+    }
+
+    // Null for a success, otherwise a short description of the failure
+    private static String outcome(HttpResponse<String> response, Throwable error) {
+        if (error != null) {
+            return error.getClass().getSimpleName();
+        }
+        if (response.statusCode() != 200) {
+            return "HTTP " + response.statusCode();
+        }
+        // Business errors are answered with HTTP 200 and their own code
+        if (!response.body().startsWith("{\"code\":200")) {
+            return "business error";
+        }
+        return null;
+    }
+
+    // Operations repeated by weight, a uniform pick from it follows the mix
+    private static Operation[] wheel(Map<Operation, Integer> mix) {
+        List<Operation> wheel = new ArrayList<>();
+        mix.forEach((operation, weight) -> {
+            for (int i = 0; i < weight; i++) {
+                wheel.add(operation);
+            }
+        });
+        return wheel.toArray(Operation[]::new);
+    }
+
+    private static void report(LoadTestOptions options, Map<Operation, Stats> stats) throws IOException {
+        Path out = Path.of(options.out);
+        Files.createDirectories(out);
+        double seconds = options.duration.toMillis() / 1000.0;
+        Histogram all = new Histogram(3);
+
+        System.out.printf("%n%-8s %10s %8s %8s %10s %10s %10s %10s %10s%n",
+                "op", "requests", "errors", "dropped", "req/s", "p50 ms", "p99 ms", "p99.9 ms", "max ms");
+        for (Map.Entry<Operation, Stats> entry : stats.entrySet()) {
+            Stats s = entry.getValue();
+            Histogram histogram = s.histogram.copy();
+            all.add(histogram);
+            printRow(entry.getKey().name().toLowerCase(), histogram, s.errorCount(), s.dropped.sum(), seconds);
+            write(out.resolve(entry.getKey().name().toLowerCase() + ".hgrm"), histogram);
+            s.errors.forEach((reason, count) -> System.out.printf("%8s   %s: %d%n", "", reason, count.sum()));
+        }
+        printRow("total", all, stats.values().stream().mapToLong(Stats::errorCount).sum(),
+                stats.values().stream().mapToLong(s -> s.dropped.sum()).sum(), seconds);
+        write(out.resolve("total.hgrm"), all);
+        System.out.printf("%nHistograms written to %s%n", out.toAbsolutePath());
+    }
+
+    private static void printRow(String name, Histogram histogram, long errors, long dropped, double seconds) {
+        System.out.printf("%-8s %10d %8d %8d %10.1f %10.2f %10.2f %10.2f %10.2f%n",
+                name, histogram.getTotalCount(), errors, dropped, histogram.getTotalCount() / seconds,
+                millis(histogram.getValueAtPercentile(50)), millis(histogram.getValueAtPercentile(99)),
+                millis(histogram.getValueAtPercentile(99.9)), millis(histogram.getMaxValue()));
+    }
+
+    // Percentile distribution in milliseconds, readable by the HdrHistogram plotter
+    private static void write(Path file, Histogram histogram) throws IOException {
+        try (PrintStream stream = new PrintStream(Files.newOutputStream(file))) {
+            histogram.outputPercentileDistribution(stream, 1000.0);
+        }
+    }
+
+    private static double millis(long micros) {
+        return micros / 1000.0;
+    }
+
+    // Latencies in microseconds, failures included, plus failure counts by reason
+    private static final class Stats {
+        private final ConcurrentHistogram histogram = new ConcurrentHistogram(3);
+        private final Map<String, LongAdder> errors = new ConcurrentHashMap<>();
+        private final LongAdder dropped = new LongAdder();
+
+        private void record(long latencyNanos, String error) {
+            histogram.recordValue(TimeUnit.NANOSECONDS.toMicros(latencyNanos));
+            if (error != null) {
+                errors.computeIfAbsent(error, reason -> new LongAdder()).increment();
+            }
+        }
+
+        private long errorCount() {
+            return errors.values().stream().mapToLong(LongAdder::sum).sum();
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.lujx3419.usersystem.loadtest;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.boot.convert.DurationStyle;
+
+/**
+ * Command line options of {@link LoadTest}, given as {@code --name=value}.
+ * Options starting with {@code --spring.}, {@code --server.} or {@code --usersystem.}
+ * are passed on to the embedded application.
+ */
+final class LoadTestOptions {
+
+    // Base URL of a running instance; when absent the application is started in-process
+    String target;
+    int users = 1000;
+    // Users logged in up front, their tokens are reused by the authenticated operations
+    int sessions = 200;
+    // Arrivals per second, independent of how fast responses come back
+    int rate = 200;
+    Duration warmup = Duration.ofSeconds(10);
+    Duration duration = Duration.ofSeconds(60);
+    int clients = 64;
+    // Requests still waiting beyond this are counted as dropped instead of being sent
+    int maxInFlight = 10_000;
+    Map<Operation, Integer> mix = parseMix("login:5,me:40,get:30,page:15,update:10");
+    String out = "target/loadtest";
+    final List<String> applicationArgs = new ArrayList<>();
+
+    static LoadTestOptions parse(String[] args) {
+        LoadTestOptions options = new LoadTestOptions();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Expected --name=value but got " + arg);
+            }
+            String name = arg.substring(2, arg.indexOf('='));
+            String value = arg.substring(arg.indexOf('=') + 1);
+            switch (name) {
+                case "target" -> options.target = value.endsWith("/") ? value.substring(0, value.length() - 1) : value;
+                case "users" -> options.users = Integer.parseInt(value);
+                case "sessions" -> options.sessions = Integer.parseInt(value);
+                case "rate" -> options.rate = Integer.parseInt(value);
+                case "warmup" -> options.warmup = DurationStyle.detectAndParse(value);
+                case "duration" -> options.duration = DurationStyle.detectAndParse(value);
+                case "clients" -> options.clients = Integer.parseInt(value);
+                case "max-in-flight" -> options.maxInFlight = Integer.parseInt(value);
+                case "mix" -> options.mix = parseMix(value);
+                case "out" -> options.out = value;
+                default -> {
+                    if (name.startsWith("spring.") || name.startsWith("server.") || name.startsWith("usersystem.")) {
+                        options.applicationArgs.add(arg);
+                    } else {
+                        throw new IllegalArgumentException("Unknown option --" + name);
+                    }
+                }
+            }
+        }
+        options.sessions = Math.min(options.sessions, options.users);
+        return options;
+    }
+
+    // Weights per operation, e.g. "login:5,me:40"
+    private static Map<Operation, Integer> parseMix(String value) {
+        Map<Operation, Integer> mix = new LinkedHashMap<>();
+        for (String entry : value.split(",")) {
+            String[] parts = entry.trim().split(":");
+            mix.put(Operation.valueOf(parts[0].trim().toUpperCase()), Integer.parseInt(parts[1].trim()));
+        }
+        return mix;
+    }
+}
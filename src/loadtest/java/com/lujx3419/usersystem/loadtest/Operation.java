@@ -0,0 +1,68 @@
+package com.lujx3419.usersystem.loadtest;
+
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.util.Random;
+
+/**
+ * The requests a simulated client can make. Authenticated operations act as one of the
+ * logged-in users, and the page listing as the admin.
+ */
+enum Operation {
+
+    LOGIN {
+        @Override
+        HttpRequest request(Fixture fixture, Random random) {
+            Session session = fixture.randomSession(random);
+            return json(fixture.uri("/users/login"))
+                    .POST(body("{\"name\":\"" + session.name() + "\",\"password\":\"" + Fixture.PASSWORD + "\"}"))
+                    .build();
+        }
+    },
+    ME {
+        @Override
+        HttpRequest request(Fixture fixture, Random random) {
+            Session session = fixture.randomSession(random);
+            return authorized(fixture.uri("/users/me"), session.token()).GET().build();
+        }
+    },
+    GET {
+        @Override
+        HttpRequest request(Fixture fixture, Random random) {
+            Session session = fixture.randomSession(random);
+            return authorized(fixture.uri("/users/" + session.id()), session.token()).GET().build();
+        }
+    },
+    PAGE {
+        @Override
+        HttpRequest request(Fixture fixture, Random random) {
+            int page = random.nextInt(Math.max(1, fixture.userCount() / Fixture.PAGE_SIZE));
+            return authorized(fixture.uri("/users/page?page=" + page + "&size=" + Fixture.PAGE_SIZE), fixture.adminToken())
+                    .GET().build();
+        }
+    },
+    UPDATE {
+        @Override
+        HttpRequest request(Fixture fixture, Random random) {
+            // Same name and no password, so the session's token stays valid
+            Session session = fixture.randomSession(random);
+            return authorized(fixture.uri("/users/" + session.id()), session.token())
+                    .PUT(body("{\"name\":\"" + session.name() + "\",\"age\":" + (18 + random.nextInt(60)) + "}"))
+                    .build();
+        }
+    };
+
+    abstract HttpRequest request(Fixture fixture, Random random);
+
+    private static HttpRequest.Builder json(URI uri) {
+        return HttpRequest.newBuilder(uri).header("Content-Type", "application/json");
+    }
+
+    private static HttpRequest.Builder authorized(URI uri, String token) {
+        return json(uri).header("Authorization", "Bearer " + token);
+    }
+
+    private static HttpRequest.BodyPublisher body(String json) {
+        return HttpRequest.BodyPublishers.ofString(json);
+    }
+}
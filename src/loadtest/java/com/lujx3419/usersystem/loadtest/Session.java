@@ -0,0 +1,5 @@
+package com.lujx3419.usersystem.loadtest;
+
+// A logged-in user
+record Session(long id, String name, String token) {
+}
@@ -1,6 +1,8 @@
 package com.lujx3419.usersystem.common;
 
 public class ApiResponse<T> {
+    public static final String SUCCESS = "success";
+
     private int code;
     private String message;
     private T data;
@@ -14,13 +16,17 @@ public class ApiResponse<T> {
     }
 
     public static <T> ApiResponse<T> ok(T data) {
-        return new ApiResponse<>(200, "success", data);
+        return new ApiResponse<>(200, SUCCESS, data);
     }
 
     public static <T> ApiResponse<T> error(String message) {
         return new ApiResponse<>(500, message, null);
     }
 
+    public static <T> ApiResponse<T> error(int code, String message) {
+        return new ApiResponse<>(code, message, null);
+    }
+
     public int getCode() {
         return code;
     }
@@ -0,0 +1,143 @@
+package com.lujx3419.usersystem.common;
+
+import java.io.IOException;
+import java.util.List;
+
+import org.springframework.boot.jackson.JsonComponent;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import com.lujx3419.usersystem.dto.response.LoginResponse;
+import com.lujx3419.usersystem.dto.response.UserResponse;
+
+/**
+ * Hand-written serializers for the response envelope and the user bodies it most often carries.
+ * They produce the same JSON as the bean serializers, but write pre-encoded field names and the
+ * constant {@code "success"} message without reflection or per-call encoding, into the
+ * generator's recycled buffer. Other payloads inside an envelope go through the regular serializers.
+ */
+@JsonComponent
+public class ApiResponseJsonComponent {
+
+    private static final SerializableString CODE = new SerializedString("code");
+    private static final SerializableString MESSAGE = new SerializedString("message");
+    private static final SerializableString DATA = new SerializedString("data");
+    private static final SerializableString SUCCESS = new SerializedString("success");
+
+    private static final SerializableString ID = new SerializedString("id");
+    private static final SerializableString NAME = new SerializedString("name");
+    private static final SerializableString AGE = new SerializedString("age");
+    private static final SerializableString VERSION = new SerializedString("version");
+
+    private static final SerializableString TOKEN = new SerializedString("token");
+    private static final SerializableString USER = new SerializedString("user");
+
+    public static class ApiResponseSerializer extends StdSerializer<ApiResponse<?>> {
+
+        public ApiResponseSerializer() {
+            super(ApiResponse.class, false);
+        }
+
+        @Override
+        public void serialize(ApiResponse<?> response, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            gen.writeStartObject(response);
+            gen.writeFieldName(CODE);
+            gen.writeNumber(response.getCode());
+            gen.writeFieldName(MESSAGE);
+            if (ApiResponse.SUCCESS.equals(response.getMessage())) {
+                gen.writeString(SUCCESS);
+            } else {
+                gen.writeString(response.getMessage());
+            }
+            gen.writeFieldName(DATA);
+            writeData(response.getData(), gen, provider);
+            gen.writeEndObject();
+        }
+
+        private static void writeData(Object data, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            if (data instanceof UserResponse user) {
+                writeUser(user, gen);
+            } else if (data instanceof LoginResponse login) {
+                writeLogin(login, gen);
+            } else if (data instanceof List<?> list) {
+                // Lists of users are written directly, anything else element by element
+                gen.writeStartArray(list, list.size());
+                for (Object element : list) {
+                    if (element instanceof UserResponse user) {
+                        writeUser(user, gen);
+                    } else {
+                        provider.defaultSerializeValue(element, gen);
+                    }
+                }
+                gen.writeEndArray();
+            } else {
+                provider.defaultSerializeValue(data, gen);
+            }
+        }
+    }
+
+    public static class UserResponseSerializer extends StdSerializer<UserResponse> {
+
+        public UserResponseSerializer() {
+            super(UserResponse.class);
+        }
+
+        @Override
+        public void serialize(UserResponse user, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            writeUser(user, gen);
+        }
+    }
+
+    public static class LoginResponseSerializer extends StdSerializer<LoginResponse> {
+
+        public LoginResponseSerializer() {
+            super(LoginResponse.class);
+        }
+
+        @Override
+        public void serialize(LoginResponse login, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            writeLogin(login, gen);
+        }
+    }
+
+    private static void writeUser(UserResponse user, JsonGenerator gen) throws IOException {
+        gen.writeStartObject(user);
+        gen.writeFieldName(ID);
+        writeNumber(user.getId(), gen);
+        gen.writeFieldName(NAME);
+        gen.writeString(user.getName());
+        gen.writeFieldName(AGE);
+        if (user.getAge() != null) {
+            gen.writeNumber(user.getAge());
+        } else {
+            gen.writeNull();
+        }
+        gen.writeFieldName(VERSION);
+        writeNumber(user.getVersion(), gen);
+        gen.writeEndObject();
+    }
+
+    private static void writeLogin(LoginResponse login, JsonGenerator gen) throws IOException {
+        gen.writeStartObject(login);
+        gen.writeFieldName(TOKEN);
+        gen.writeString(login.getToken());
+        gen.writeFieldName(USER);
+        if (login.getUser() != null) {
+            writeUser(login.getUser(), gen);
+        } else {
+            gen.writeNull();
+        }
+        gen.writeEndObject();
+    }
+
+    private static void writeNumber(Long value, JsonGenerator gen) throws IOException {
+        if (value != null) {
+            gen.writeNumber(value);
+        } else {
+            gen.writeNull();
+        }
+    }
+}
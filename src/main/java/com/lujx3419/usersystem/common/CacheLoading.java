@@ -0,0 +1,42 @@
+package com.lujx3419.usersystem.common;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+
+/**
+ * Loads missing cache entries on the calling thread, outside the cache's lock.
+ * A blocking load inside {@code Cache.get(key, loader)} holds a monitor of the backing map, which
+ * pins a virtual thread to its carrier; here the map only holds a future while the caller loads.
+ * Concurrent callers for the same key still wait for that single load.
+ */
+public final class CacheLoading {
+
+    private CacheLoading() {}
+
+    /**
+     * Return the cached value, loading it if absent. A {@code null} value is returned but not cached.
+     */
+    public static <K, V> V get(AsyncCache<K, V> cache, K key, Function<? super K, ? extends V> loader) {
+        CompletableFuture<V> loading = new CompletableFuture<>();
+        CompletableFuture<V> entry = cache.get(key, (k, executor) -> loading);
+        if (entry == loading) {
+            try {
+                loading.complete(loader.apply(key));
+            } catch (RuntimeException | Error e) {
+                loading.completeExceptionally(e);
+                throw e;
+            }
+        }
+        try {
+            return entry.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+}
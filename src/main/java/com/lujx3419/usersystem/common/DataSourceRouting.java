@@ -0,0 +1,71 @@
+package com.lujx3419.usersystem.common;
+
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+
+/**
+ * Per-thread routing hints for the read/write splitting data source.
+ * Read-only transactions go to a replica unless the current request has already written,
+ * in which case they stay on the primary so the caller reads its own writes.
+ */
+public final class DataSourceRouting {
+
+    private static final ThreadLocal<Boolean> pinnedToPrimary = new ThreadLocal<>();
+
+    private DataSourceRouting() {}
+
+    /**
+     * Route the rest of the current request to the primary.
+     */
+    public static void pinToPrimary() {
+        pinnedToPrimary.set(Boolean.TRUE);
+    }
+
+    public static boolean isPinnedToPrimary() {
+        return Boolean.TRUE.equals(pinnedToPrimary.get());
+    }
+
+    /**
+     * Forget the pin, called when a request ends.
+     */
+    public static void reset() {
+        pinnedToPrimary.remove();
+    }
+
+    /**
+     * Wrap an executor so that tasks run with the pin of the thread that submitted them, and
+     * the worker is left unpinned when they finish instead of keeping a pin set by their writes.
+     */
+    public static Executor propagating(Executor executor) {
+        return task -> {
+            boolean pinned = isPinnedToPrimary();
+            executor.execute(() -> {
+                if (pinned) {
+                    pinToPrimary();
+                }
+                try {
+                    task.run();
+                } finally {
+                    pinnedToPrimary.remove();
+                }
+            });
+        };
+    }
+
+    /**
+     * Run a read against the primary, for data that must not be affected by replication lag.
+     */
+    public static <T> T onPrimary(Supplier<T> action) {
+        Boolean previous = pinnedToPrimary.get();
+        pinnedToPrimary.set(Boolean.TRUE);
+        try {
+            return action.get();
+        } finally {
+            if (previous == null) {
+                pinnedToPrimary.remove();
+            } else {
+                pinnedToPrimary.set(previous);
+            }
+        }
+    }
+}
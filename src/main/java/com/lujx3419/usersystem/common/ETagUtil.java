@@ -0,0 +1,55 @@
+package com.lujx3419.usersystem.common;
+
+import java.util.List;
+
+import com.lujx3419.usersystem.dto.response.UserResponse;
+
+public class ETagUtil {
+
+    /**
+     * Strong ETag of a single user, derived from its id and the version bumped on every change
+     */
+    public static String strong(Long id, long version) {
+        return "\"" + id + "-" + version + "\"";
+    }
+
+    /**
+     * Weak ETag of a listing, a hash of the ids and versions of its rows and of the cursor to the
+     * next page. It identifies the content, not the exact bytes, hence weak.
+     */
+    public static String weak(List<UserResponse> users, String nextCursor) {
+        long hash = 0xcbf29ce484222325L;
+        for (UserResponse user : users) {
+            hash = mix(hash, user.getId());
+            hash = mix(hash, user.getVersion());
+        }
+        if (nextCursor != null) {
+            hash = mix(hash, nextCursor.hashCode());
+        }
+        return "W/\"" + Long.toHexString(hash) + "\"";
+    }
+
+    /**
+     * Check whether an If-None-Match header matches the given ETag, using the weak comparison
+     * RFC 9110 prescribes for it
+     */
+    public static boolean matches(String ifNoneMatch, String eTag) {
+        String opaque = opaque(eTag);
+        for (String candidate : ifNoneMatch.split(",")) {
+            candidate = candidate.trim();
+            if ("*".equals(candidate) || opaque.equals(opaque(candidate))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String opaque(String eTag) {
+        return eTag.startsWith("W/") ? eTag.substring(2) : eTag;
+    }
+
+    private static long mix(long hash, long value) {
+        hash = (hash ^ value) * 0x100000001b3L;
+        return hash ^ (hash >>> 29);
+    }
+}
@@ -1,5 +1,11 @@
 package com.lujx3419.usersystem.common;
 
+import com.lujx3419.usersystem.model.User;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
@@ -7,12 +13,44 @@ import org.springframework.web.bind.annotation.RestControllerAdvice;
 @RestControllerAdvice
 public class GlobalExceptionHandler {
 
+    // Handle requests rejected for lack of capacity
+    @ExceptionHandler(ServiceUnavailableException.class)
+    public ResponseEntity<ApiResponse<String>> handleServiceUnavailable(ServiceUnavailableException ex) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+                .body(ApiResponse.error(HttpStatus.SERVICE_UNAVAILABLE.value(), ex.getMessage()));
+    }
+
+    // Handle clients over their request rate
+    @ExceptionHandler(TooManyRequestsException.class)
+    public ResponseEntity<ApiResponse<String>> handleTooManyRequests(TooManyRequestsException ex) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+                .body(ApiResponse.error(HttpStatus.TOO_MANY_REQUESTS.value(), ex.getMessage()));
+    }
+
+    // Handle writes that lost a race against a concurrent change
+    @ExceptionHandler(VersionConflictException.class)
+    public ResponseEntity<ApiResponse<String>> handleVersionConflict(VersionConflictException ex) {
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+                .body(ApiResponse.error(HttpStatus.CONFLICT.value(), ex.getMessage()));
+    }
+
     // Handle custom business exceptions
     @ExceptionHandler(BusinessException.class)
     public ApiResponse<String> handleBusinessException(BusinessException ex) {
         return ApiResponse.error(ex.getMessage());
     }
 
+    // Handle constraint violations, a duplicate name is reported like any other business error
+    @ExceptionHandler(DataIntegrityViolationException.class)
+    public ApiResponse<String> handleDataIntegrityViolation(DataIntegrityViolationException ex) {
+        if (isDuplicateUsername(ex)) {
+            return handleBusinessException(new BusinessException("Username already exists!"));
+        }
+        return ApiResponse.error("Request conflicts with existing data!");
+    }
+
     // Handle validation exceptions
     @ExceptionHandler(MethodArgumentNotValidException.class)
     public ApiResponse<String> handleValidationException(MethodArgumentNotValidException ex) {
@@ -26,4 +64,14 @@ public class GlobalExceptionHandler {
         ex.printStackTrace();
         return ApiResponse.error("Internal server error");
     }
+
+    private static boolean isDuplicateUsername(DataIntegrityViolationException ex) {
+        for (Throwable cause = ex; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConstraintViolationException violation && violation.getConstraintName() != null) {
+                return violation.getConstraintName().toLowerCase().contains(User.UNIQUE_NAME);
+            }
+        }
+        String message = ex.getMostSpecificCause().getMessage();
+        return message != null && message.toLowerCase().contains(User.UNIQUE_NAME);
+    }
 }
@@ -0,0 +1,12 @@
+package com.lujx3419.usersystem.common;
+
+/**
+ * Thrown when a login names an existing user but the password does not match.
+ * Answered like any business error; the rate limiter counts it against the username.
+ */
+public class InvalidPasswordException extends BusinessException {
+
+    public InvalidPasswordException() {
+        super("Invalid password!");
+    }
+}
@@ -1,75 +1,162 @@
 package com.lujx3419.usersystem.common;
 
-import io.jsonwebtoken.Claims;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.lujx3419.usersystem.model.User;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.function.Function;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 
 @Component
 public class JwtUtil {
 
     private static final String SECRET_KEY = "your-secret-key-must-be-at-least-256-bits-long-for-hs256";
     private static final SecretKey key = Keys.hmacShaKeyFor(SECRET_KEY.getBytes());
-    
+
+    // The parser is immutable and thread-safe, so build it once
+    private static final JwtParser parser = Jwts.parserBuilder()
+            .setSigningKey(key)
+            .build();
+
     // Token validity: 7 days
     private static final long JWT_TOKEN_VALIDITY = 7 * 24 * 60 * 60 * 1000;
 
-    // Get username from token
-    public String getUsernameFromToken(String token) {
-        return getClaimFromToken(token, Claims::getSubject);
+    // Maximum number of verified tokens kept in memory
+    private static final long VERIFIED_TOKEN_CACHE_SIZE = 10_000;
+
+    // Verified tokens keyed by SHA-256 digest, each entry expires together with its token
+    private final Cache<String, TokenClaims> verifiedTokens = Caffeine.newBuilder()
+            .maximumSize(VERIFIED_TOKEN_CACHE_SIZE)
+            .expireAfter(new Expiry<String, TokenClaims>() {
+                @Override
+                public long expireAfterCreate(String digest, TokenClaims claims, long currentTime) {
+                    return remainingNanos(claims);
+                }
+
+                @Override
+                public long expireAfterUpdate(String digest, TokenClaims claims, long currentTime, long currentDuration) {
+                    return remainingNanos(claims);
+                }
+
+                @Override
+                public long expireAfterRead(String digest, TokenClaims claims, long currentTime, long currentDuration) {
+                    return currentDuration;
+                }
+            })
+            .recordStats()
+            .build();
+
+    // Signing, and signature checks of tokens not yet in the cache
+    private final Timer signTimer;
+    private final Timer verifyTimer;
+
+    // Without a registry (outside Spring) the timers record nothing
+    public JwtUtil() {
+        this(Metrics.globalRegistry);
     }
 
-    // Get expiration date from token
-    public Date getExpirationDateFromToken(String token) {
-        return getClaimFromToken(token, Claims::getExpiration);
+    @Autowired
+    public JwtUtil(MeterRegistry meterRegistry) {
+        this.signTimer = Timer.builder("usersystem.jwt").tag("operation", "sign").register(meterRegistry);
+        this.verifyTimer = Timer.builder("usersystem.jwt").tag("operation", "verify").register(meterRegistry);
+        CaffeineCacheMetrics.monitor(meterRegistry, verifiedTokens, "jwt-verified");
     }
 
-    public <T> T getClaimFromToken(String token, Function<Claims, T> claimsResolver) {
-        final Claims claims = getAllClaimsFromToken(token);
-        return claimsResolver.apply(claims);
+    /**
+     * Verify the signature and expiration of a token and return its claims.
+     * Tokens that were already verified are served from memory without re-checking the HMAC.
+     *
+     * @throws io.jsonwebtoken.JwtException if the token is malformed, tampered with or expired
+     */
+    public TokenClaims parseToken(String token) {
+        String digest = digest(token);
+        TokenClaims cached = verifiedTokens.getIfPresent(digest);
+        if (cached != null) {
+            if (!cached.isExpired()) {
+                return cached;
+            }
+            verifiedTokens.invalidate(digest);
+        }
+
+        TokenClaims claims = verifyTimer.record(() -> TokenClaims.from(parser.parseClaimsJws(token).getBody()));
+        if (claims.isExpired()) {
+            throw new ExpiredJwtException(null, null, "JWT expired");
+        }
+        verifiedTokens.put(digest, claims);
+        return claims;
     }
 
-    // Get all claims from token
-    private Claims getAllClaimsFromToken(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(key)
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+    // Get username from token
+    public String getUsernameFromToken(String token) {
+        return parseToken(token).getSubject();
     }
 
-    // Check if token is expired
-    private Boolean isTokenExpired(String token) {
-        final Date expiration = getExpirationDateFromToken(token);
-        return expiration.before(new Date());
+    // Get expiration date from token
+    public Date getExpirationDateFromToken(String token) {
+        return new Date(parseToken(token).getExpiresAt());
     }
 
-    // Generate token for user
-    public String generateToken(String username) {
+    // Generate token for user, embedding id, role and token version; the random token id allows revoking it alone
+    public String generateToken(User user) {
         Map<String, Object> claims = new HashMap<>();
-        return doGenerateToken(claims, username);
+        claims.put(TokenClaims.USER_ID, user.getId());
+        claims.put(TokenClaims.ROLE, user.getRole());
+        claims.put(TokenClaims.TOKEN_VERSION, user.getTokenVersion());
+        return doGenerateToken(claims, user.getName());
     }
 
     private String doGenerateToken(Map<String, Object> claims, String subject) {
-        return Jwts.builder()
+        return signTimer.record(() -> Jwts.builder()
                 .setClaims(claims)
                 .setSubject(subject)
+                .setId(UUID.randomUUID().toString())
                 .setIssuedAt(new Date(System.currentTimeMillis()))
                 .setExpiration(new Date(System.currentTimeMillis() + JWT_TOKEN_VALIDITY))
                 .signWith(key, SignatureAlgorithm.HS256)
-                .compact();
+                .compact());
     }
 
     // Validate token
     public Boolean validateToken(String token, String username) {
-        final String tokenUsername = getUsernameFromToken(token);
-        return (username.equals(tokenUsername) && !isTokenExpired(token));
+        try {
+            return username.equals(parseToken(token).getSubject());
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    private static long remainingNanos(TokenClaims claims) {
+        long remainingMillis = claims.getExpiresAt() - System.currentTimeMillis();
+        return TimeUnit.MILLISECONDS.toNanos(Math.max(remainingMillis, 0));
+    }
+
+    private static String digest(String token) {
+        try {
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            byte[] hash = sha256.digest(token.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getEncoder().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
     }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,19 @@
+package com.lujx3419.usersystem.common;
+
+/**
+ * Thrown when a request is rejected because the server is out of capacity.
+ * Answered with 503 and a Retry-After header.
+ */
+public class ServiceUnavailableException extends BusinessException {
+
+    private final long retryAfterSeconds;
+
+    public ServiceUnavailableException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
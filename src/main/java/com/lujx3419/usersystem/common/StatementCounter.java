@@ -0,0 +1,56 @@
+package com.lujx3419.usersystem.common;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Counts the SQL statements Hibernate issues on behalf of the current request.
+ * The count follows the request onto executors wrapped with {@link #propagating(Executor)}.
+ */
+public final class StatementCounter {
+
+    private static final ThreadLocal<AtomicInteger> current = new ThreadLocal<>();
+
+    private StatementCounter() {}
+
+    // Start counting for the current thread and return the counter
+    public static AtomicInteger begin() {
+        AtomicInteger counter = new AtomicInteger();
+        current.set(counter);
+        return counter;
+    }
+
+    public static void end() {
+        current.remove();
+    }
+
+    // Called for every statement, a no-op outside of a counted request
+    public static void increment() {
+        AtomicInteger counter = current.get();
+        if (counter != null) {
+            counter.incrementAndGet();
+        }
+    }
+
+    /**
+     * Wrap an executor so that tasks, and the continuations that complete on the same thread,
+     * count towards the request that submitted them.
+     */
+    public static Executor propagating(Executor executor) {
+        return task -> {
+            AtomicInteger counter = current.get();
+            if (counter == null) {
+                executor.execute(task);
+                return;
+            }
+            executor.execute(() -> {
+                current.set(counter);
+                try {
+                    task.run();
+                } finally {
+                    current.remove();
+                }
+            });
+        };
+    }
+}
@@ -0,0 +1,90 @@
+package com.lujx3419.usersystem.common;
+
+import io.jsonwebtoken.Claims;
+
+/**
+ * Immutable view of the claims of a verified JWT.
+ */
+public final class TokenClaims {
+
+    static final String USER_ID = "uid";
+    static final String ROLE = "role";
+    static final String TOKEN_VERSION = "ver";
+
+    private final String tokenId;
+    private final String subject;
+    private final Long userId;
+    private final String role;
+    private final Integer tokenVersion;
+    private final long issuedAt;
+    private final long expiresAt;
+
+    public TokenClaims(String subject, Long userId, String role, Integer tokenVersion, long issuedAt, long expiresAt) {
+        this(null, subject, userId, role, tokenVersion, issuedAt, expiresAt);
+    }
+
+    public TokenClaims(String tokenId, String subject, Long userId, String role, Integer tokenVersion,
+                       long issuedAt, long expiresAt) {
+        this.tokenId = tokenId;
+        this.subject = subject;
+        this.userId = userId;
+        this.role = role;
+        this.tokenVersion = tokenVersion;
+        this.issuedAt = issuedAt;
+        this.expiresAt = expiresAt;
+    }
+
+    static TokenClaims from(Claims claims) {
+        Number userId = claims.get(USER_ID, Number.class);
+        Number tokenVersion = claims.get(TOKEN_VERSION, Number.class);
+        return new TokenClaims(
+                claims.getId(),
+                claims.getSubject(),
+                userId != null ? userId.longValue() : null,
+                claims.get(ROLE, String.class),
+                tokenVersion != null ? tokenVersion.intValue() : null,
+                claims.getIssuedAt() != null ? claims.getIssuedAt().getTime() : 0L,
+                claims.getExpiration() != null ? claims.getExpiration().getTime() : Long.MAX_VALUE);
+    }
+
+    // The jti claim, null for tokens issued before it was added
+    public String getTokenId() {
+        return tokenId;
+    }
+
+    public String getSubject() {
+        return subject;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public String getRole() {
+        return role;
+    }
+
+    public Integer getTokenVersion() {
+        return tokenVersion;
+    }
+
+    public long getIssuedAt() {
+        return issuedAt;
+    }
+
+    public long getExpiresAt() {
+        return expiresAt;
+    }
+
+    public boolean isExpired() {
+        return expiresAt <= System.currentTimeMillis();
+    }
+
+    /**
+     * Whether the token carries everything needed to authenticate without a user lookup.
+     * Tokens issued before role and version claims were added do not.
+     */
+    public boolean isSelfContained() {
+        return userId != null && role != null && tokenVersion != null;
+    }
+}
@@ -0,0 +1,25 @@
+package com.lujx3419.usersystem.common;
+
+/**
+ * Thrown when a client exceeds its request rate.
+ * Answered with 429 and a Retry-After header.
+ */
+public class TooManyRequestsException extends BusinessException {
+
+    private final long retryAfterSeconds;
+
+    public TooManyRequestsException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    // Rejections are expected under attack and should stay cheap, the stack trace tells nothing
+    @Override
+    public synchronized Throwable fillInStackTrace() {
+        return this;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
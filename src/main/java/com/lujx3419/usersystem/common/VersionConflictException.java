@@ -0,0 +1,12 @@
+package com.lujx3419.usersystem.common;
+
+/**
+ * Thrown when a conditional update finds the row changed since the client read it.
+ * Answered with 409.
+ */
+public class VersionConflictException extends BusinessException {
+
+    public VersionConflictException(String message) {
+        super(message);
+    }
+}
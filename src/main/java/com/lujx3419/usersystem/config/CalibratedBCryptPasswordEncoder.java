@@ -0,0 +1,94 @@
+package com.lujx3419.usersystem.config;
+
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+/**
+ * BCrypt encoder with a fixed target cost that still verifies hashes of any cost.
+ * Hashes whose cost, read from the {@code $2a$NN$} prefix, differs from the target
+ * are reported by {@link #upgradeEncoding(String)} so they can be re-encoded on login.
+ */
+public class CalibratedBCryptPasswordEncoder implements PasswordEncoder {
+
+    private static final int MIN_STRENGTH = 4;
+    private static final int MAX_STRENGTH = 31;
+
+    // Number of samples per cost during calibration, the fastest one is used
+    private static final int SAMPLES = 3;
+
+    private final int strength;
+    private final BCryptPasswordEncoder delegate;
+
+    public CalibratedBCryptPasswordEncoder(int strength) {
+        this.strength = strength;
+        this.delegate = new BCryptPasswordEncoder(strength);
+    }
+
+    /**
+     * Pick the highest cost whose hashing time on this machine stays within the target,
+     * but never less than the given floor.
+     */
+    public static int calibrate(long targetMillis, int minStrength) {
+        int strength = Math.max(minStrength, MIN_STRENGTH);
+        // Warm up the JIT so the first measurement is not inflated
+        measureMillis(MIN_STRENGTH);
+
+        long millis = measureMillis(strength);
+        while (strength < MAX_STRENGTH) {
+            // Each cost step doubles the work, stop before the next one would exceed the target
+            if (millis * 2 > targetMillis) {
+                break;
+            }
+            strength++;
+            millis = measureMillis(strength);
+        }
+        return strength;
+    }
+
+    private static long measureMillis(int strength) {
+        BCryptPasswordEncoder encoder = new BCryptPasswordEncoder(strength);
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < SAMPLES; i++) {
+            long start = System.nanoTime();
+            encoder.encode("calibration");
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        return best / 1_000_000;
+    }
+
+    public int getStrength() {
+        return strength;
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return delegate.encode(rawPassword);
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        // The cost is read from the hash itself, so hashes of any cost verify
+        return delegate.matches(rawPassword, encodedPassword);
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        int cost = costOf(encodedPassword);
+        return cost > 0 && cost != strength;
+    }
+
+    // Cost of a "$2a$NN$..." hash, or -1 if it is not a BCrypt hash
+    static int costOf(String encodedPassword) {
+        if (encodedPassword == null || encodedPassword.length() < 7
+                || encodedPassword.charAt(0) != '$' || encodedPassword.charAt(3) != '$'
+                || encodedPassword.charAt(6) != '$') {
+            return -1;
+        }
+        char tens = encodedPassword.charAt(4);
+        char ones = encodedPassword.charAt(5);
+        if (!Character.isDigit(tens) || !Character.isDigit(ones)) {
+            return -1;
+        }
+        return (tens - '0') * 10 + (ones - '0');
+    }
+}
@@ -0,0 +1,53 @@
+package com.lujx3419.usersystem.config;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.OptionalLong;
+import java.util.UUID;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cache.jcache.MissingCacheStrategy;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import com.lujx3419.usersystem.model.User;
+
+/**
+ * Hibernate's second-level cache: users by id and user ids by name, in bounded, expiring Caffeine
+ * caches behind JCache. Whether it is used is set by {@code hibernate.cache.use_second_level_cache};
+ * hit and miss counts come from Hibernate's statistics and are exported as {@code hibernate_*} metrics.
+ */
+@Configuration
+public class HibernateCacheConfig {
+
+    @Bean
+    public HibernatePropertiesCustomizer secondLevelCacheCustomizer(
+            @Value("${usersystem.cache.entities.max-size:10000}") long maxSize,
+            @Value("${usersystem.cache.entities.ttl:5m}") Duration ttl) {
+        return properties -> {
+            // A cache manager of this session factory's own, which Hibernate closes with it
+            CacheManager cacheManager = Caching.getCachingProvider(CaffeineCachingProvider.class.getName())
+                    .getCacheManager(URI.create("usersystem:hibernate:" + UUID.randomUUID()), getClass().getClassLoader());
+            CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+            configuration.setMaximumSize(OptionalLong.of(maxSize));
+            // Bounds how long a value read from a lagging replica can outlive a bulk eviction
+            configuration.setExpireAfterWrite(OptionalLong.of(ttl.toNanos()));
+            configuration.setStatisticsEnabled(true);
+            cacheManager.createCache(User.CACHE_REGION, configuration);
+            cacheManager.createCache(User.NATURAL_ID_CACHE_REGION, configuration);
+
+            properties.put(AvailableSettings.CACHE_REGION_FACTORY, "jcache");
+            properties.put(ConfigSettings.CACHE_MANAGER, cacheManager);
+            // Every region must be one of the caches configured above
+            properties.put(ConfigSettings.MISSING_CACHE_STRATEGY, MissingCacheStrategy.FAIL.getExternalRepresentation());
+        };
+    }
+}
@@ -1,13 +1,21 @@
 package com.lujx3419.usersystem.config;
 
 import com.lujx3419.usersystem.common.JwtUtil;
+import com.lujx3419.usersystem.common.TokenClaims;
+import com.lujx3419.usersystem.service.TokenDenylist;
+import com.lujx3419.usersystem.service.TokenVersionRegistry;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
@@ -15,6 +23,8 @@ import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.EnumMap;
+import java.util.Map;
 
 @Component
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
@@ -25,6 +35,35 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     @Autowired
     private UserDetailsService userDetailsService;
 
+    @Autowired
+    private TokenVersionRegistry tokenVersions;
+
+    @Autowired
+    private TokenDenylist tokenDenylist;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // When enabled, the principal is built from the token claims instead of loading the user
+    @Value("${usersystem.security.stateless:false}")
+    private boolean stateless;
+
+    private enum Outcome {
+        NO_TOKEN, INVALID, EXPIRED, REVOKED, AUTHENTICATED
+    }
+
+    private final Map<Outcome, Counter> outcomes = new EnumMap<>(Outcome.class);
+
+    @Override
+    protected void initFilterBean() {
+        for (Outcome outcome : Outcome.values()) {
+            outcomes.put(outcome, Counter.builder("usersystem.auth.filter")
+                    .description("Requests seen by the JWT filter, by outcome")
+                    .tag("outcome", outcome.name().toLowerCase())
+                    .register(meterRegistry));
+        }
+    }
+
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
             throws ServletException, IOException {
@@ -38,28 +77,62 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
         final String authorizationHeader = request.getHeader("Authorization");
 
-        String username = null;
-        String jwt = null;
+        TokenClaims claims = null;
+        Outcome outcome = Outcome.NO_TOKEN;
 
         if (authorizationHeader != null && authorizationHeader.startsWith("Bearer ")) {
-            jwt = authorizationHeader.substring(7);
+            String jwt = authorizationHeader.substring(7);
             try {
-                username = jwtUtil.getUsernameFromToken(jwt);
+                // Signature and expiration are verified once here
+                claims = jwtUtil.parseToken(jwt);
+            } catch (ExpiredJwtException e) {
+                // Expired token, continue with the filter chain
+                outcome = Outcome.EXPIRED;
             } catch (Exception e) {
                 // Invalid token, continue with the filter chain
+                outcome = Outcome.INVALID;
             }
         }
 
-        if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            UserDetails userDetails = this.userDetailsService.loadUserByUsername(username);
+        if (claims != null) {
+            outcome = isNotRevoked(claims) ? Outcome.AUTHENTICATED : Outcome.REVOKED;
+        }
+
+        if (outcome == Outcome.AUTHENTICATED && SecurityContextHolder.getContext().getAuthentication() == null) {
+            UserDetails userDetails = stateless && claims.isSelfContained()
+                    ? fromClaims(claims)
+                    : this.userDetailsService.loadUserByUsername(claims.getSubject());
 
-            if (jwtUtil.validateToken(jwt, userDetails.getUsername())) {
+            // Deactivation bumps the token version; tokens without a version are turned away here
+            if (userDetails.isEnabled()) {
                 UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
                         userDetails, null, userDetails.getAuthorities());
                 authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
                 SecurityContextHolder.getContext().setAuthentication(authToken);
+            } else {
+                outcome = Outcome.REVOKED;
             }
         }
+        outcomes.get(outcome).increment();
         filterChain.doFilter(request, response);
     }
+
+    private boolean isNotRevoked(TokenClaims claims) {
+        // Logged out tokens; the Bloom filter in front answers for almost all others without a lookup
+        if (claims.getTokenId() != null && tokenDenylist.isRevoked(claims.getTokenId(), claims.getExpiresAt())) {
+            return false;
+        }
+        // Tokens issued before versioning carry no version and are checked against the user record only
+        if (claims.getUserId() == null || claims.getTokenVersion() == null) {
+            return true;
+        }
+        return tokenVersions.isCurrent(claims.getUserId(), claims.getTokenVersion());
+    }
+
+    private UserDetails fromClaims(TokenClaims claims) {
+        return User.withUsername(claims.getSubject())
+                .password("")
+                .authorities(claims.getRole())
+                .build();
+    }
 } 
\ No newline at end of file
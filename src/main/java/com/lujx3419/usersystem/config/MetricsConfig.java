@@ -0,0 +1,40 @@
+package com.lujx3419.usersystem.config;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import com.lujx3419.usersystem.common.StatementCounter;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Metrics that Spring Boot does not record by itself: SQL statements per request.
+ * Timers, counters and cache metrics are registered by the components they measure.
+ */
+@Configuration
+public class MetricsConfig {
+
+    // Count every statement Hibernate prepares, the SQL is left unchanged
+    @Bean
+    public HibernatePropertiesCustomizer statementCountingCustomizer() {
+        StatementInspector inspector = sql -> {
+            StatementCounter.increment();
+            return sql;
+        };
+        return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR, inspector);
+    }
+
+    // Runs before security so that the user lookups of the JWT filter are counted too
+    @Bean
+    public FilterRegistrationBean<StatementMetricsFilter> statementMetricsFilter(MeterRegistry meterRegistry) {
+        FilterRegistrationBean<StatementMetricsFilter> registration =
+                new FilterRegistrationBean<>(new StatementMetricsFilter(meterRegistry));
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 1);
+        return registration;
+    }
+}
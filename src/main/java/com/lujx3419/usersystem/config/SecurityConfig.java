@@ -1,14 +1,32 @@
 package com.lujx3419.usersystem.config;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import io.micrometer.core.instrument.MeterRegistry;
 
 @Configuration
 public class SecurityConfig {
 
+    private static final Logger log = LoggerFactory.getLogger(SecurityConfig.class);
+
+    /**
+     * BCrypt encoder whose cost is either fixed by configuration or calibrated at startup
+     * so that one hash takes about the configured time on the current machine.
+     */
     @Bean
-    public BCryptPasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(@Value("${usersystem.bcrypt.strength:0}") int strength,
+                                           @Value("${usersystem.bcrypt.target-millis:100}") long targetMillis,
+                                           @Value("${usersystem.bcrypt.min-strength:10}") int minStrength,
+                                           MeterRegistry meterRegistry) {
+        if (strength <= 0) {
+            strength = CalibratedBCryptPasswordEncoder.calibrate(targetMillis, minStrength);
+            log.info("Calibrated BCrypt strength {} for a target of {} ms per hash", strength, targetMillis);
+        }
+        return new TimedPasswordEncoder(new CalibratedBCryptPasswordEncoder(strength), meterRegistry);
     }
 }
@@ -0,0 +1,95 @@
+package com.lujx3419.usersystem.config;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import com.lujx3419.usersystem.common.StatementCounter;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Records how many SQL statements each request issued, by method and URI pattern.
+ * Asynchronous requests are recorded when they complete.
+ */
+public class StatementMetricsFilter extends OncePerRequestFilter {
+
+    private final MeterRegistry meterRegistry;
+
+    public StatementMetricsFilter(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        AtomicInteger statements = StatementCounter.begin();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            StatementCounter.end();
+            if (request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(new RecordOnce(request, statements));
+            } else {
+                record(request, statements);
+            }
+        }
+    }
+
+    private void record(HttpServletRequest request, AtomicInteger statements) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        DistributionSummary.builder("usersystem.db.statements")
+                .description("SQL statements issued per request")
+                .tag("method", request.getMethod())
+                .tag("uri", pattern != null ? pattern.toString() : "UNKNOWN")
+                .register(meterRegistry)
+                .record(statements.get());
+    }
+
+    // Records when the async request ends, however it ends
+    private class RecordOnce implements AsyncListener {
+        private final HttpServletRequest request;
+        private final AtomicInteger statements;
+        private final AtomicBoolean recorded = new AtomicBoolean();
+
+        RecordOnce(HttpServletRequest request, AtomicInteger statements) {
+            this.request = request;
+            this.statements = statements;
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            recordOnce();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            recordOnce();
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            recordOnce();
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+        }
+
+        private void recordOnce() {
+            if (recorded.compareAndSet(false, true)) {
+                record(request, statements);
+            }
+        }
+    }
+}
@@ -1,27 +1,56 @@
 package com.lujx3419.usersystem.controller;
 
+import java.io.InputStream;
+import java.time.Duration;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.async.AsyncWebRequest;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import com.lujx3419.usersystem.common.ApiResponse;
+import com.lujx3419.usersystem.common.ETagUtil;
+import com.lujx3419.usersystem.common.InvalidPasswordException;
+import com.lujx3419.usersystem.dto.request.BulkUserRequest;
 import com.lujx3419.usersystem.dto.request.ChangePasswordRequest;
 import com.lujx3419.usersystem.dto.request.UserLoginRequest;
 import com.lujx3419.usersystem.dto.request.UserRegisterRequest;
 import com.lujx3419.usersystem.dto.request.UserRequest;
+import com.lujx3419.usersystem.dto.request.UserPatchRequest;
+import com.lujx3419.usersystem.dto.response.BulkJobResponse;
+import com.lujx3419.usersystem.dto.response.CursorPageResponse;
+import com.lujx3419.usersystem.dto.response.ImportResultResponse;
 import com.lujx3419.usersystem.dto.response.LoginResponse;
 import com.lujx3419.usersystem.dto.response.UserResponse;
+import com.lujx3419.usersystem.service.LoginRateLimiter;
+import com.lujx3419.usersystem.service.UserBulkService;
+import com.lujx3419.usersystem.service.UserImportService;
 import com.lujx3419.usersystem.service.UserService;
 
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 
 @RestController
@@ -31,60 +60,165 @@ public class UserController {
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private UserImportService userImportService;
+
+    @Autowired
+    private UserBulkService userBulkService;
+
+    @Autowired
+    private LoginRateLimiter loginRateLimiter;
+
+    // Replaces spring.mvc.async.request-timeout for exports only
+    @Value("${usersystem.export.timeout:30m}")
+    private Duration exportTimeout;
+
+    // Endpoints that hash passwords complete asynchronously on the hashing pool,
+    // after the rate limiter has turned away clients that try too often
+
     @PostMapping("/register")
-    public ApiResponse<UserResponse> registerUser(@Valid @RequestBody UserRegisterRequest request) {
-        UserResponse user = userService.registerUser(request);
-        return ApiResponse.ok(user);
+    public CompletableFuture<ApiResponse<UserResponse>> registerUser(@Valid @RequestBody UserRegisterRequest request,
+                                                                     HttpServletRequest servletRequest) {
+        loginRateLimiter.checkRegistration(servletRequest.getRemoteAddr());
+        return userService.registerUser(request).thenApply(ApiResponse::ok);
     }
 
     @PostMapping("/register/admin")
-    public ApiResponse<UserResponse> registerAdmin(@Valid @RequestBody com.lujx3419.usersystem.dto.request.AdminRegisterRequest request) {
-        UserResponse user = userService.registerAdmin(request);
-        return ApiResponse.ok(user);
+    public CompletableFuture<ApiResponse<UserResponse>> registerAdmin(@Valid @RequestBody com.lujx3419.usersystem.dto.request.AdminRegisterRequest request,
+                                                                      HttpServletRequest servletRequest) {
+        loginRateLimiter.checkRegistration(servletRequest.getRemoteAddr());
+        return userService.registerAdmin(request).thenApply(ApiResponse::ok);
     }
 
     @PostMapping("/login")
-    public ApiResponse<LoginResponse> login(@Valid @RequestBody UserLoginRequest request) {
-        LoginResponse loginResponse = userService.login(request);
-        return ApiResponse.ok(loginResponse);
+    public CompletableFuture<ApiResponse<LoginResponse>> login(@Valid @RequestBody UserLoginRequest request,
+                                                               HttpServletRequest servletRequest) {
+        String clientIp = servletRequest.getRemoteAddr();
+        loginRateLimiter.checkLogin(request.getName(), clientIp);
+        return userService.login(request)
+                .whenComplete((response, e) -> {
+                    if (e instanceof CompletionException && e.getCause() instanceof InvalidPasswordException) {
+                        loginRateLimiter.recordFailedLogin(request.getName(), clientIp);
+                    }
+                })
+                .thenApply(ApiResponse::ok);
     }
 
+    // Reads carry an ETag; a request whose If-None-Match still matches is answered 304 without a body
+
     @GetMapping("/me")
-    public ApiResponse<UserResponse> getCurrentUser() {
+    public ResponseEntity<ApiResponse<UserResponse>> getCurrentUser() {
         UserResponse user = userService.getCurrentUser();
-        return ApiResponse.ok(user);
+        return revalidated(HttpStatus.OK, ETagUtil.strong(user.getId(), user.getVersion())).body(ApiResponse.ok(user));
     }
 
     @GetMapping("/{id}")
-    public ApiResponse<UserResponse> getUser(@PathVariable Long id) {
+    public ResponseEntity<ApiResponse<UserResponse>> getUser(
+            @PathVariable Long id,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        // A client polling an unchanged user is answered from the version alone
+        if (ifNoneMatch != null) {
+            Long version = userService.getUserVersion(id);
+            if (version != null && ETagUtil.matches(ifNoneMatch, ETagUtil.strong(id, version))) {
+                return revalidated(HttpStatus.NOT_MODIFIED, ETagUtil.strong(id, version)).build();
+            }
+        }
         UserResponse user = userService.getUserById(id);
-        return ApiResponse.ok(user);
+        return revalidated(HttpStatus.OK, ETagUtil.strong(user.getId(), user.getVersion())).body(ApiResponse.ok(user));
     }
 
     @GetMapping
-    public ApiResponse<List<UserResponse>> getAllUsers() {
+    public ResponseEntity<ApiResponse<List<UserResponse>>> getAllUsers() {
         List<UserResponse> users = userService.getAllUsers();
-        return ApiResponse.ok(users);
+        return revalidated(HttpStatus.OK, ETagUtil.weak(users, null)).body(ApiResponse.ok(users));
     }
 
-    @GetMapping("/page")
-    public ApiResponse<List<UserResponse>> getUsersByPage(@RequestParam int page, @RequestParam int size) {
+    @GetMapping(value = "/page", params = "page")
+    public ResponseEntity<ApiResponse<List<UserResponse>>> getUsersByPage(@RequestParam int page, @RequestParam int size) {
         List<UserResponse> users = userService.getUsersByPage(page, size);
-        return ApiResponse.ok(users);
+        return revalidated(HttpStatus.OK, ETagUtil.weak(users, null)).body(ApiResponse.ok(users));
+    }
+
+    // Keyset pagination: pass the nextCursor of the previous page as "after"
+    @GetMapping(value = "/page", params = "!page")
+    public ResponseEntity<ApiResponse<CursorPageResponse>> getUsersAfter(
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(defaultValue = "id") String sort) {
+        CursorPageResponse users = userService.getUsersAfter(after, size, sort);
+        return revalidated(HttpStatus.OK, ETagUtil.weak(users.getItems(), users.getNextCursor())).body(ApiResponse.ok(users));
+    }
+
+    // Name prefix (case-insensitive) and age range search, served from an in-memory index
+    @GetMapping("/search")
+    public ResponseEntity<ApiResponse<List<UserResponse>>> searchUsers(
+            @RequestParam(required = false) String prefix,
+            @RequestParam(required = false) Integer minAge,
+            @RequestParam(required = false) Integer maxAge,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
+        List<UserResponse> users = userService.searchUsers(prefix, minAge, maxAge, page, size);
+        return revalidated(HttpStatus.OK, ETagUtil.weak(users, null)).body(ApiResponse.ok(users));
+    }
+
+    // Streams every user as newline-delimited JSON without loading the table into memory
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportUsers(HttpServletRequest servletRequest) {
+        StreamingResponseBody body = userService.exportUsers();
+        // Applied when the stream starts, other asynchronous requests keep the short global timeout
+        WebAsyncUtils.getAsyncManager(servletRequest).registerCallableInterceptor("exportTimeout",
+                new CallableProcessingInterceptor() {
+                    @Override
+                    public <T> void beforeConcurrentHandling(NativeWebRequest request, Callable<T> task) {
+                        ((AsyncWebRequest) request).setTimeout(exportTimeout.toMillis());
+                    }
+                });
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+
+    // Bulk import from a text/csv or application/x-ndjson request body
+    @PostMapping(value = "/import", consumes = {"text/csv", MediaType.APPLICATION_NDJSON_VALUE})
+    public ApiResponse<ImportResultResponse> importUsers(
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+            InputStream body) {
+        ImportResultResponse result = userImportService.importUsers(body, contentType);
+        return ApiResponse.ok(result);
+    }
+
+    // Bulk delete, role change or (de)activation by id list or filter; runs in the background
+    @PostMapping("/bulk")
+    public ApiResponse<BulkJobResponse> bulkUpdate(@Valid @RequestBody BulkUserRequest request) {
+        BulkJobResponse job = userBulkService.submit(request);
+        return ApiResponse.ok(job);
+    }
+
+    // Progress of a bulk operation
+    @GetMapping("/bulk/{jobId}")
+    public ApiResponse<BulkJobResponse> getBulkJob(@PathVariable String jobId) {
+        BulkJobResponse job = userBulkService.getJob(jobId);
+        return ApiResponse.ok(job);
     }
 
     @PutMapping("/{id}")
-    public ApiResponse<UserResponse> updateUser(@PathVariable Long id, @Valid @RequestBody UserRequest request) {
-        UserResponse user = userService.updateUser(id, request);
+    public CompletableFuture<ApiResponse<UserResponse>> updateUser(@PathVariable Long id, @Valid @RequestBody UserRequest request) {
+        return userService.updateUser(id, request).thenApply(ApiResponse::ok);
+    }
+
+    // Partial update: only the fields sent are changed, guarded by the version the client read
+    @PatchMapping("/{id}")
+    public ApiResponse<UserResponse> patchUser(@PathVariable Long id, @Valid @RequestBody UserPatchRequest request) {
+        UserResponse user = userService.patchUser(id, request);
         return ApiResponse.ok(user);
     }
 
     @PutMapping("/{id}/password")
-    public ApiResponse<String> changePassword(
+    public CompletableFuture<ApiResponse<String>> changePassword(
             @PathVariable Long id,
             @RequestBody ChangePasswordRequest request) {
-        userService.changePassword(id, request);
-        return ApiResponse.ok("Password changed successfully!");
+        return userService.changePassword(id, request)
+                .thenApply(done -> ApiResponse.ok("Password changed successfully!"));
     }
 
     @DeleteMapping("/{id}")
@@ -93,9 +227,30 @@ public class UserController {
         return ApiResponse.ok("User ID " + id + " deleted!");
     }
 
+    // Revokes the token of this request only, other sessions stay signed in
+    @PostMapping("/logout")
+    public ApiResponse<String> logout(@RequestHeader(HttpHeaders.AUTHORIZATION) String authorization) {
+        userService.logout(authorization.substring("Bearer ".length()));
+        return ApiResponse.ok("Logged out successfully!");
+    }
+
+    // Revokes every token issued to the user so far
+    @DeleteMapping("/{id}/sessions")
+    public ApiResponse<String> revokeSessions(@PathVariable Long id) {
+        userService.revokeSessions(id);
+        return ApiResponse.ok("Sessions of user ID " + id + " revoked!");
+    }
+
     @PostMapping("/refresh-token")
     public ApiResponse<LoginResponse> refreshToken() {
         LoginResponse loginResponse = userService.refreshToken();
         return ApiResponse.ok(loginResponse);
     }
+
+    // Clients may keep the body but must revalidate it before every use
+    private static ResponseEntity.BodyBuilder revalidated(HttpStatus status, String eTag) {
+        return ResponseEntity.status(status)
+                .eTag(eTag)
+                .cacheControl(CacheControl.noCache().cachePrivate());
+    }
 }
@@ -0,0 +1,80 @@
+package com.lujx3419.usersystem.dto.request;
+
+import java.util.List;
+
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+/**
+ * Admin operation on many users at once. Targets are either the given ids or every
+ * user matching the filter (name prefix and/or age range), never both.
+ */
+public class BulkUserRequest {
+
+    public enum Action {
+        DELETE, SET_ROLE, DEACTIVATE, ACTIVATE
+    }
+
+    @NotNull(message = "Action cannot be null")
+    private Action action;
+
+    // New role, only for SET_ROLE
+    private String role;
+
+    @Size(max = 100000, message = "At most 100000 ids per request")
+    private List<Long> ids;
+
+    private String namePrefix;
+
+    private Integer minAge;
+
+    private Integer maxAge;
+
+    public Action getAction() {
+        return action;
+    }
+
+    public void setAction(Action action) {
+        this.action = action;
+    }
+
+    public String getRole() {
+        return role;
+    }
+
+    public void setRole(String role) {
+        this.role = role;
+    }
+
+    public List<Long> getIds() {
+        return ids;
+    }
+
+    public void setIds(List<Long> ids) {
+        this.ids = ids;
+    }
+
+    public String getNamePrefix() {
+        return namePrefix;
+    }
+
+    public void setNamePrefix(String namePrefix) {
+        this.namePrefix = namePrefix;
+    }
+
+    public Integer getMinAge() {
+        return minAge;
+    }
+
+    public void setMinAge(Integer minAge) {
+        this.minAge = minAge;
+    }
+
+    public Integer getMaxAge() {
+        return maxAge;
+    }
+
+    public void setMaxAge(Integer maxAge) {
+        this.maxAge = maxAge;
+    }
+}
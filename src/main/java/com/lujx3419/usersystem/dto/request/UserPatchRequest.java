@@ -0,0 +1,42 @@
+package com.lujx3419.usersystem.dto.request;
+
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Pattern;
+
+/**
+ * Partial update of a user: fields left out (null) keep their current value.
+ */
+public class UserPatchRequest {
+    @Pattern(regexp = ".*\\S.*", message = "Username cannot be blank")
+    private String name;
+
+    private Integer age;
+
+    // Version the client read, the patch is rejected if the user changed since
+    @NotNull(message = "Version cannot be null")
+    private Long version;
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public Integer getAge() {
+        return age;
+    }
+
+    public void setAge(Integer age) {
+        this.age = age;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+}
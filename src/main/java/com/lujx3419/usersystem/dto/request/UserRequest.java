@@ -13,6 +13,9 @@ public class UserRequest {
    
     private String password;
 
+    // Optional: when given, the update only applies if the user is still at this version
+    private Long version;
+
     public String getName() {
         return name;
     }
@@ -36,4 +39,12 @@ public class UserRequest {
     public void setPassword(String password) {
         this.password = password;
     }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
 }
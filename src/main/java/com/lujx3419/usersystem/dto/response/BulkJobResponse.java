@@ -0,0 +1,71 @@
+package com.lujx3419.usersystem.dto.response;
+
+public class BulkJobResponse {
+    private String jobId;
+    private String action;
+    // PENDING, RUNNING, COMPLETED or FAILED
+    private String status;
+    // Number of ids requested, null for filter-based jobs
+    private Integer total;
+    // Users examined so far
+    private long processed;
+    // Users actually deleted or changed so far, chunks are committed as they go
+    private long affected;
+    private String error;
+
+    public String getJobId() {
+        return jobId;
+    }
+
+    public void setJobId(String jobId) {
+        this.jobId = jobId;
+    }
+
+    public String getAction() {
+        return action;
+    }
+
+    public void setAction(String action) {
+        this.action = action;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public Integer getTotal() {
+        return total;
+    }
+
+    public void setTotal(Integer total) {
+        this.total = total;
+    }
+
+    public long getProcessed() {
+        return processed;
+    }
+
+    public void setProcessed(long processed) {
+        this.processed = processed;
+    }
+
+    public long getAffected() {
+        return affected;
+    }
+
+    public void setAffected(long affected) {
+        this.affected = affected;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+}
@@ -0,0 +1,32 @@
+package com.lujx3419.usersystem.dto.response;
+
+import java.util.List;
+
+public class CursorPageResponse {
+    private List<UserResponse> items;
+    // Opaque token for the next page, null when there are no more rows
+    private String nextCursor;
+
+    public CursorPageResponse() {}
+
+    public CursorPageResponse(List<UserResponse> items, String nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<UserResponse> getItems() {
+        return items;
+    }
+
+    public void setItems(List<UserResponse> items) {
+        this.items = items;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+}
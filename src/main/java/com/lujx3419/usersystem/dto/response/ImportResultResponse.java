@@ -0,0 +1,82 @@
+package com.lujx3419.usersystem.dto.response;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class ImportResultResponse {
+    private int total;
+    private int imported;
+    private int failed;
+    // Details of the first failed rows, the count above covers all of them
+    private List<RowFailure> failures = new ArrayList<>();
+
+    public int getTotal() {
+        return total;
+    }
+
+    public void setTotal(int total) {
+        this.total = total;
+    }
+
+    public int getImported() {
+        return imported;
+    }
+
+    public void setImported(int imported) {
+        this.imported = imported;
+    }
+
+    public int getFailed() {
+        return failed;
+    }
+
+    public void setFailed(int failed) {
+        this.failed = failed;
+    }
+
+    public List<RowFailure> getFailures() {
+        return failures;
+    }
+
+    public void setFailures(List<RowFailure> failures) {
+        this.failures = failures;
+    }
+
+    public static class RowFailure {
+        private int line;
+        private String name;
+        private String reason;
+
+        public RowFailure() {}
+
+        public RowFailure(int line, String name, String reason) {
+            this.line = line;
+            this.name = name;
+            this.reason = reason;
+        }
+
+        public int getLine() {
+            return line;
+        }
+
+        public void setLine(int line) {
+            this.line = line;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public String getReason() {
+            return reason;
+        }
+
+        public void setReason(String reason) {
+            this.reason = reason;
+        }
+    }
+}
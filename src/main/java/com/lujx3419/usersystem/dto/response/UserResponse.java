@@ -4,6 +4,17 @@ public class UserResponse {
     private Long id;
     private String name;
     private Integer age;
+    private Long version;
+
+    public UserResponse() {}
+
+    // Used by the constructor expressions in UserRepository
+    public UserResponse(Long id, String name, Integer age, Long version) {
+        this.id = id;
+        this.name = name;
+        this.age = age;
+        this.version = version;
+    }
 
     public Long getId() {
         return id;
@@ -28,4 +39,12 @@ public class UserResponse {
     public void setAge(Integer age) {
         this.age = age;
     }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
 }
@@ -0,0 +1,67 @@
+package com.lujx3419.usersystem.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+
+@Entity
+@Table(name = "revoked_tokens", indexes = {
+        @Index(name = "idx_revoked_tokens_expires_at", columnList = "expires_at"),  // Serves the purge of expired rows
+        @Index(name = "idx_revoked_tokens_revoked_at", columnList = "revoked_at")   // Serves the poll for new rows
+})
+public class RevokedToken {
+
+    @Id
+    @Column(length = 36)
+    private String jti;  // Id of the revoked token
+
+    private Long userId;
+
+    @Column(name = "expires_at", nullable = false)
+    private long expiresAt;  // Expiration of the token in epoch millis, the row is useless afterwards
+
+    @Column(name = "revoked_at")
+    private Long revokedAt;  // Time of the revocation in epoch millis, by the clock of the instance that revoked it
+
+    public RevokedToken() {}
+
+    public RevokedToken(String jti, Long userId, long expiresAt) {
+        this.jti = jti;
+        this.userId = userId;
+        this.expiresAt = expiresAt;
+    }
+
+    public String getJti() {
+        return jti;
+    }
+
+    public void setJti(String jti) {
+        this.jti = jti;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+
+    public long getExpiresAt() {
+        return expiresAt;
+    }
+
+    public void setExpiresAt(long expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+
+    public Long getRevokedAt() {
+        return revokedAt;
+    }
+
+    public void setRevokedAt(Long revokedAt) {
+        this.revokedAt = revokedAt;
+    }
+}
@@ -1,19 +1,42 @@
 package com.lujx3419.usersystem.model;
 
+import jakarta.persistence.Cacheable;
+import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import jakarta.persistence.Version;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.DynamicUpdate;
+import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.NaturalIdCache;
 
 @Entity
-@Table(name = "users")  // Table name can be customized
+@DynamicUpdate  // Updates write only the changed columns
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = User.CACHE_REGION)  // Second-level cache by id
+@NaturalIdCache(region = User.NATURAL_ID_CACHE_REGION)  // and ids by name
+@Table(name = "users",  // Table name can be customized
+        uniqueConstraints = @UniqueConstraint(name = User.UNIQUE_NAME, columnNames = "name"))  // Also serves lookups and listing by name
 public class User {
 
+    public static final String UNIQUE_NAME = "uk_users_name";
+    public static final String CACHE_REGION = "users-by-id";
+    public static final String NATURAL_ID_CACHE_REGION = "user-ids-by-name";
+    // Query space of UserRepository's native writes. It names no table, so Hibernate leaves both
+    // regions alone and UserCache evicts the written users' entries once the transaction commits.
+    public static final String WRITE_QUERY_SPACE = "users-evicted-by-id";
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)  // Primary key auto-increment
     private Long id;
 
+    @NaturalId(mutable = true)  // Users can be renamed
     private String name;
 
     private Integer age;
@@ -22,6 +45,15 @@ public class User {
     
     private String role = "USER";  // User role, default is USER
 
+    private int tokenVersion;  // Bumped to invalidate previously issued tokens
+
+    @Column(nullable = false)
+    @ColumnDefault("true")  // Existing rows stay active when the column is added
+    private boolean active = true;  // Deactivated users can no longer log in
+
+    @Version
+    private long version;  // Optimistic lock, bumped on every change to the profile
+
     // -------------------
     // Must have a no-argument constructor
     public User() {}
@@ -67,4 +99,28 @@ public class User {
     public void setRole(String role) {
         this.role = role;
     }
+
+    public int getTokenVersion() {
+        return tokenVersion;
+    }
+
+    public void setTokenVersion(int tokenVersion) {
+        this.tokenVersion = tokenVersion;
+    }
+
+    public boolean isActive() {
+        return active;
+    }
+
+    public void setActive(boolean active) {
+        this.active = active;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
 }
@@ -0,0 +1,45 @@
+package com.lujx3419.usersystem.repository;
+
+import com.lujx3419.usersystem.model.RevokedToken;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+@Transactional(readOnly = true)
+public interface RevokedTokenRepository extends JpaRepository<RevokedToken, String> {
+
+    // A plain INSERT, save() would first look for an existing row with the assigned id. A token
+    // already revoked, e.g. logged out on another instance before this one polled, is left as it is.
+    // The table it touches is declared, or Hibernate would clear every second-level cache region.
+    @Transactional
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "revoked_tokens"))
+    @Query(value = "insert into revoked_tokens (jti, user_id, expires_at, revoked_at) values (:jti, :userId, :expiresAt, :revokedAt)"
+            + " on duplicate key update revoked_at = revoked_at", nativeQuery = true)
+    int insert(@Param("jti") String jti, @Param("userId") Long userId, @Param("expiresAt") long expiresAt,
+               @Param("revokedAt") long revokedAt);
+
+    // Forward-only read of the rows still in force, as unmanaged objects; must be consumed inside a transaction and closed
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("select new com.lujx3419.usersystem.model.RevokedToken(t.jti, t.userId, t.expiresAt) from RevokedToken t"
+            + " where t.expiresAt > :now")
+    Stream<RevokedToken> streamUnexpired(@Param("now") long now);
+
+    // Rows still in force that were revoked at or after the given time, as unmanaged objects
+    @Query("select new com.lujx3419.usersystem.model.RevokedToken(t.jti, t.userId, t.expiresAt) from RevokedToken t"
+            + " where t.revokedAt >= :since and t.expiresAt > :now")
+    List<RevokedToken> findRevokedSince(@Param("since") long since, @Param("now") long now);
+
+    @Transactional
+    @Modifying
+    @Query("delete from RevokedToken t where t.expiresAt <= :now")
+    int deleteExpired(@Param("now") long now);
+}
@@ -0,0 +1,10 @@
+package com.lujx3419.usersystem.repository;
+
+import java.util.Optional;
+
+import com.lujx3419.usersystem.model.User;
+
+// Lookups by the natural id, resolved through the second-level cache before querying the database
+public interface UserNaturalIdRepository {
+    Optional<User> findByName(String name);
+}
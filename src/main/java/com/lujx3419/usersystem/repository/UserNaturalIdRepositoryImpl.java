@@ -0,0 +1,28 @@
+package com.lujx3419.usersystem.repository;
+
+import java.util.Optional;
+
+import org.hibernate.Session;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.lujx3419.usersystem.model.User;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+
+// The repository's read-only default does not reach fragment implementations
+@Transactional(readOnly = true)
+class UserNaturalIdRepositoryImpl implements UserNaturalIdRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    // Name to id from the natural-id cache, then the user from the entity cache; a derived
+    // query would always go to the database
+    @Override
+    public Optional<User> findByName(String name) {
+        return entityManager.unwrap(Session.class)
+                .bySimpleNaturalId(User.class)
+                .loadOptional(name);
+    }
+}
@@ -1,10 +1,151 @@
 package com.lujx3419.usersystem.repository;
 
+import com.lujx3419.usersystem.dto.response.UserResponse;
 import com.lujx3419.usersystem.model.User;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
-public interface UserRepository extends JpaRepository<User, Long> {
-    Optional<User> findByName(String name);
+// Query methods are read-only by default so that they can be served by a replica
+@Transactional(readOnly = true)
+public interface UserRepository extends JpaRepository<User, Long>, UserNaturalIdRepository {
+
+    // Projections straight into UserResponse rows: no managed entities, no password column
+
+    @Query("select new com.lujx3419.usersystem.dto.response.UserResponse(u.id, u.name, u.age, u.version) from User u where u.id = :id")
+    Optional<UserResponse> findResponseById(@Param("id") Long id);
+
+    @Query("select new com.lujx3419.usersystem.dto.response.UserResponse(u.id, u.name, u.age, u.version) from User u order by u.id")
+    List<UserResponse> findAllResponses();
+
+    @Query("select new com.lujx3419.usersystem.dto.response.UserResponse(u.id, u.name, u.age, u.version) from User u order by u.id")
+    List<UserResponse> findResponsePage(Pageable pageable);
+
+    // Keyset pagination: rows after the given id, in id order
+    @Query("select new com.lujx3419.usersystem.dto.response.UserResponse(u.id, u.name, u.age, u.version) from User u"
+            + " where u.id > :afterId order by u.id")
+    List<UserResponse> findResponsePageAfterId(@Param("afterId") long afterId, Limit limit);
+
+    // Keyset pagination in name order, the id breaks ties between equal names
+    @Query("select new com.lujx3419.usersystem.dto.response.UserResponse(u.id, u.name, u.age, u.version) from User u"
+            + " where u.name > :afterName or (u.name = :afterName and u.id > :afterId) order by u.name, u.id")
+    List<UserResponse> findResponsePageAfterName(@Param("afterName") String afterName, @Param("afterId") long afterId, Limit limit);
+
+    // Forward-only read of the whole table; must be consumed inside a transaction and closed
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("select new com.lujx3419.usersystem.dto.response.UserResponse(u.id, u.name, u.age, u.version) from User u order by u.id")
+    Stream<UserResponse> streamAllResponses();
+
+    // Bulk operations: one chunk of targets, then one set-based statement per chunk
+
+    @Query("select new com.lujx3419.usersystem.dto.response.UserResponse(u.id, u.name, u.age, u.version) from User u"
+            + " where u.id in :ids order by u.id")
+    List<UserResponse> findResponsesByIdIn(@Param("ids") Collection<Long> ids);
+
+    // Users matching a bulk filter, in id order after the given id; null criteria match everything
+    @Query("select new com.lujx3419.usersystem.dto.response.UserResponse(u.id, u.name, u.age, u.version) from User u"
+            + " where u.id > :afterId and (:namePattern is null or u.name like :namePattern escape '!')"
+            + " and (:minAge is null or u.age >= :minAge) and (:maxAge is null or u.age <= :maxAge) order by u.id")
+    List<UserResponse> findResponsesMatching(@Param("afterId") long afterId, @Param("namePattern") String namePattern,
+                                             @Param("minAge") Integer minAge, @Param("maxAge") Integer maxAge, Limit limit);
+
+    // Writes are native statements in User.WRITE_QUERY_SPACE: a JPQL update or delete would clear
+    // both second-level regions of User, however few rows it touched
+
+    @Transactional
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = User.WRITE_QUERY_SPACE))
+    @Query(value = "delete from users where id in :ids", nativeQuery = true)
+    int deleteByIdIn(@Param("ids") Collection<Long> ids);
+
+    // Role and activation changes revoke the users' tokens
+    @Transactional
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = User.WRITE_QUERY_SPACE))
+    @Query(value = "update users set token_version = token_version + 1, version = version + 1, role = :role"
+            + " where id in :ids and role <> :role", nativeQuery = true)
+    int updateRoleByIdIn(@Param("ids") Collection<Long> ids, @Param("role") String role);
+
+    @Transactional
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = User.WRITE_QUERY_SPACE))
+    @Query(value = "update users set token_version = token_version + 1, version = version + 1, active = :active"
+            + " where id in :ids and active <> :active", nativeQuery = true)
+    int updateActiveByIdIn(@Param("ids") Collection<Long> ids, @Param("active") boolean active);
+
+    // Revokes every token issued to the user so far
+    @Transactional
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = User.WRITE_QUERY_SPACE))
+    @Query(value = "update users set token_version = token_version + 1 where id = :id", nativeQuery = true)
+    int incrementTokenVersion(@Param("id") Long id);
+
+    @Query("select u.name from User u where u.name in :names")
+    List<String> findExistingNames(@Param("names") Collection<String> names);
+
+    @Query("select u.tokenVersion from User u where u.id = :id")
+    Optional<Integer> findTokenVersionById(@Param("id") Long id);
+
+    // The name before an update, locked until the update commits so that no rename slips in between
+    @Transactional
+    @Query(value = "select name from users where id = :id for update", nativeQuery = true)
+    Optional<String> findNameByIdForUpdate(@Param("id") Long id);
+
+    // Answers conditional GETs without reading the rest of the row
+    @Query("select u.version from User u where u.id = :id")
+    Optional<Long> findVersionById(@Param("id") Long id);
+
+    // Conditional updates: one statement each, guarded by the version the client read and, for
+    // non-admins, by the owner's name. They return 0 when the guard fails.
+    // The token version is assigned first because MySQL evaluates SET assignments left to right.
+
+    // Partial update, null fields keep their value; renaming revokes the user's tokens
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = User.WRITE_QUERY_SPACE))
+    @Query(value = "update users set"
+            + " token_version = case when :name is not null and :name <> name then token_version + 1 else token_version end,"
+            + " version = version + 1, name = coalesce(:name, name), age = coalesce(:age, age)"
+            + " where id = :id and version = :version and (:owner is null or name = :owner)", nativeQuery = true)
+    int patch(@Param("id") Long id, @Param("version") long version, @Param("name") String name,
+              @Param("age") Integer age, @Param("owner") String owner);
+
+    // Full update, the version check is skipped when no version is given; a new name or password revokes tokens
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = User.WRITE_QUERY_SPACE))
+    @Query(value = "update users set"
+            + " token_version = case when :password is not null or :name <> name then token_version + 1 else token_version end,"
+            + " version = version + 1, name = :name, age = :age, password = coalesce(:password, password)"
+            + " where id = :id and (:version is null or version = :version) and (:owner is null or name = :owner)",
+            nativeQuery = true)
+    int update(@Param("id") Long id, @Param("version") Long version, @Param("name") String name,
+               @Param("age") Integer age, @Param("password") String password, @Param("owner") String owner);
+
+    // Password change, applied only if the hash is still the one the old password was checked against
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = User.WRITE_QUERY_SPACE))
+    @Query(value = "update users set token_version = token_version + 1, version = version + 1, password = :newPassword"
+            + " where id = :id and password = :oldPassword", nativeQuery = true)
+    int changePassword(@Param("id") Long id, @Param("oldPassword") String oldPassword, @Param("newPassword") String newPassword);
+
+    // Replace a password hash only if it has not been changed in the meantime
+    @Transactional
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = User.WRITE_QUERY_SPACE))
+    @Query(value = "update users set password = :newPassword where id = :id and password = :oldPassword", nativeQuery = true)
+    int updatePasswordHash(@Param("id") Long id, @Param("oldPassword") String oldPassword, @Param("newPassword") String newPassword);
 }
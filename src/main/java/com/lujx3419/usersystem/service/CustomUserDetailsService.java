@@ -1,7 +1,6 @@
 package com.lujx3419.usersystem.service;
 
 import com.lujx3419.usersystem.model.User;
-import com.lujx3419.usersystem.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -15,16 +14,17 @@ import java.util.Collections;
 public class CustomUserDetailsService implements UserDetailsService {
 
     @Autowired
-    private UserRepository userRepository;
+    private UserCache userCache;
 
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-        User user = userRepository.findByName(username)
+        User user = userCache.findByName(username)
                 .orElseThrow(() -> new UsernameNotFoundException("User not found: " + username));
 
         return new org.springframework.security.core.userdetails.User(
                 user.getName(),
                 user.getPassword(),
+                user.isActive(), true, true, true,
                 Collections.singletonList(new SimpleGrantedAuthority(user.getRole()))
         );
     }
@@ -0,0 +1,92 @@
+package com.lujx3419.usersystem.service;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.lujx3419.usersystem.common.DataSourceRouting;
+import com.lujx3419.usersystem.common.ServiceUnavailableException;
+import com.lujx3419.usersystem.common.StatementCounter;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Small bounded pool for the database writes that follow a password hash, kept apart from
+ * the executor Spring MVC runs long exports on, so that those cannot delay logins and updates.
+ * When the queue is full new work is rejected immediately instead of waiting.
+ */
+@Component
+public class DatabaseWriteExecutor implements Executor, MeterBinder {
+
+    private final ThreadPoolExecutor executor;
+
+    // Statements run by a task count towards the submitting request and follow its read-your-writes pin
+    private final Executor tasks;
+
+    private final LongAdder rejected = new LongAdder();
+
+    private final long retryAfterSeconds;
+
+    public DatabaseWriteExecutor(@Value("${usersystem.writes.threads:4}") int threads,
+                                 @Value("${usersystem.writes.queue-capacity:100}") int queueCapacity,
+                                 @Value("${usersystem.hashing.retry-after-seconds:1}") long retryAfterSeconds) {
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), threadFactory(), new ThreadPoolExecutor.AbortPolicy());
+        this.tasks = StatementCounter.propagating(DataSourceRouting.propagating(executor));
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    /**
+     * @throws ServiceUnavailableException if the pool is saturated
+     */
+    @Override
+    public void execute(Runnable task) {
+        try {
+            tasks.execute(task);
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw new ServiceUnavailableException("Server is busy, please try again later!", retryAfterSeconds);
+        }
+    }
+
+    public int getQueueSize() {
+        return executor.getQueue().size();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("usersystem.db.writes.queue", this, DatabaseWriteExecutor::getQueueSize)
+                .description("Database writes after a hash waiting for a thread")
+                .register(registry);
+        FunctionCounter.builder("usersystem.db.writes.rejected", rejected, LongAdder::sum)
+                .description("Database writes after a hash rejected because the queue was full")
+                .register(registry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    private static ThreadFactory threadFactory() {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "db-writes-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,198 @@
+package com.lujx3419.usersystem.service;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Ticker;
+import com.lujx3419.usersystem.common.TooManyRequestsException;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * Token buckets in front of login and registration, keyed by client IP and by username, so that
+ * bursts of guesses are turned away before any password is hashed or any user is read.
+ * <p>
+ * Only wrong passwords take tokens from the username buckets, and those are kept per username and
+ * client IP, so a stranger guessing from one address cannot lock the owner out. A looser bucket per
+ * username alone still stops guesses spread over many addresses.
+ * <p>
+ * Each bucket is a single {@link AtomicLong} holding the time at which it will be full again
+ * (the generic cell rate algorithm); taking a token is one compare-and-set, without locks.
+ * Buckets idle for longer than a full refill are evicted, which loses nothing since a new bucket
+ * starts full, and the number of buckets is capped.
+ */
+@Component
+public class LoginRateLimiter implements MeterBinder {
+
+    private final boolean enabled;
+
+    // Login and registration share the per-IP bucket, both cost a password hash
+    private final Limit byIp;
+    private final Limit byUsernameAndIp;
+    private final Limit byUsername;
+
+    @Autowired
+    public LoginRateLimiter(@Value("${usersystem.rate-limit.enabled:true}") boolean enabled,
+                            @Value("${usersystem.rate-limit.ip.per-minute:60}") int ipPerMinute,
+                            @Value("${usersystem.rate-limit.ip.burst:20}") int ipBurst,
+                            @Value("${usersystem.rate-limit.username.per-minute:10}") int usernamePerMinute,
+                            @Value("${usersystem.rate-limit.username.burst:5}") int usernameBurst,
+                            @Value("${usersystem.rate-limit.username-global.per-minute:120}") int usernameGlobalPerMinute,
+                            @Value("${usersystem.rate-limit.username-global.burst:60}") int usernameGlobalBurst,
+                            @Value("${usersystem.rate-limit.max-keys:100000}") long maxKeys) {
+        this(enabled, ipPerMinute, ipBurst, usernamePerMinute, usernameBurst, usernameGlobalPerMinute, usernameGlobalBurst,
+                maxKeys, Ticker.systemTicker());
+    }
+
+    LoginRateLimiter(boolean enabled, int ipPerMinute, int ipBurst, int usernamePerMinute, int usernameBurst,
+                     int usernameGlobalPerMinute, int usernameGlobalBurst, long maxKeys, Ticker ticker) {
+        this.enabled = enabled;
+        this.byIp = new Limit("ip", ipPerMinute, ipBurst, maxKeys, ticker);
+        this.byUsernameAndIp = new Limit("username", usernamePerMinute, usernameBurst, maxKeys, ticker);
+        this.byUsername = new Limit("username-global", usernameGlobalPerMinute, usernameGlobalBurst, maxKeys, ticker);
+    }
+
+    /**
+     * Take a token for a login attempt from the client's bucket, and check that the username's
+     * buckets for failed attempts are not empty.
+     *
+     * @throws TooManyRequestsException if any of the buckets is empty
+     */
+    public void checkLogin(String username, String clientIp) {
+        if (!enabled) {
+            return;
+        }
+        byIp.acquire(clientIp);
+        String name = normalized(username);
+        byUsernameAndIp.check(name + '@' + clientIp);
+        byUsername.check(name);
+    }
+
+    /**
+     * Take a token from the username's buckets after a wrong password. Never throws: the attempt
+     * was already answered, an empty bucket only stays empty.
+     */
+    public void recordFailedLogin(String username, String clientIp) {
+        if (!enabled) {
+            return;
+        }
+        String name = normalized(username);
+        byUsernameAndIp.charge(name + '@' + clientIp);
+        byUsername.charge(name);
+    }
+
+    /**
+     * Take a token for a registration from the client's bucket.
+     *
+     * @throws TooManyRequestsException if the bucket is empty
+     */
+    public void checkRegistration(String clientIp) {
+        if (enabled) {
+            byIp.acquire(clientIp);
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        byIp.bindTo(registry);
+        byUsernameAndIp.bindTo(registry);
+        byUsername.bindTo(registry);
+    }
+
+    // Names match case-insensitively in the database, so case variants share a bucket
+    private static String normalized(String username) {
+        return username.toLowerCase(Locale.ROOT);
+    }
+
+    private static final class Limit {
+        private final String name;
+        // Time one token takes to refill, and how far ahead of now a bucket may be booked
+        private final long intervalNanos;
+        private final long toleranceNanos;
+        private final Cache<String, AtomicLong> buckets;
+        private final Ticker ticker;
+        private final LongAdder rejected = new LongAdder();
+
+        private Limit(String name, int perMinute, int burst, long maxKeys, Ticker ticker) {
+            this.name = name;
+            this.ticker = ticker;
+            this.intervalNanos = TimeUnit.MINUTES.toNanos(1) / perMinute;
+            this.toleranceNanos = intervalNanos * burst;
+            this.buckets = Caffeine.newBuilder()
+                    .maximumSize(maxKeys)
+                    .expireAfterAccess(Duration.ofNanos(toleranceNanos))
+                    .ticker(ticker)
+                    .recordStats()
+                    .build();
+        }
+
+        private void acquire(String key) {
+            AtomicLong bucket = buckets.get(key, k -> new AtomicLong(Long.MIN_VALUE));
+            long now = ticker.read();
+            while (true) {
+                long fullAt = bucket.get();
+                long next = Math.max(fullAt, now) + intervalNanos;
+                long excess = next - now - toleranceNanos;
+                if (excess > 0) {
+                    throw rejectedFor(excess);
+                }
+                if (bucket.compareAndSet(fullAt, next)) {
+                    return;
+                }
+            }
+        }
+
+        // Like acquire, without taking the token
+        private void check(String key) {
+            AtomicLong bucket = buckets.getIfPresent(key);
+            if (bucket == null) {
+                return;
+            }
+            long now = ticker.read();
+            long excess = Math.max(bucket.get(), now) + intervalNanos - now - toleranceNanos;
+            if (excess > 0) {
+                throw rejectedFor(excess);
+            }
+        }
+
+        // Like acquire, but an empty bucket is left as it is rather than booked further ahead
+        private void charge(String key) {
+            AtomicLong bucket = buckets.get(key, k -> new AtomicLong(Long.MIN_VALUE));
+            long now = ticker.read();
+            while (true) {
+                long fullAt = bucket.get();
+                long next = Math.max(fullAt, now) + intervalNanos;
+                if (next - now > toleranceNanos || bucket.compareAndSet(fullAt, next)) {
+                    return;
+                }
+            }
+        }
+
+        private TooManyRequestsException rejectedFor(long excessNanos) {
+            rejected.increment();
+            // Seconds until a token is back, rounded up
+            long retryAfterSeconds = (excessNanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1);
+            return new TooManyRequestsException("Too many attempts, please try again later!", retryAfterSeconds);
+        }
+
+        private void bindTo(MeterRegistry registry) {
+            FunctionCounter.builder("usersystem.rate.limited", rejected, LongAdder::sum)
+                    .description("Login and registration attempts rejected for exceeding the rate limit")
+                    .tag("key", name)
+                    .register(registry);
+            CaffeineCacheMetrics.monitor(registry, buckets, "rate-limit-" + name);
+        }
+    }
+}
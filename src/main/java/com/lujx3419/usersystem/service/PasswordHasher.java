@@ -0,0 +1,145 @@
+package com.lujx3419.usersystem.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import com.lujx3419.usersystem.common.DataSourceRouting;
+import com.lujx3419.usersystem.common.ServiceUnavailableException;
+import com.lujx3419.usersystem.common.StatementCounter;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Runs password hashing on a dedicated, bounded pool so that bursts of logins and
+ * registrations cannot occupy every request thread. When the queue is full new work
+ * is rejected immediately instead of waiting.
+ */
+@Component
+public class PasswordHasher implements MeterBinder {
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    private final ThreadPoolExecutor executor;
+
+    // Submits to the pool, statements run by the task and its continuations count towards the submitting request
+    // and follow its read-your-writes pin
+    private final Executor tasks;
+
+    // Caps the hashes of bulk work queued or running at once, so that an import leaves the queue to logins and registrations
+    private final Semaphore bulkPermits;
+
+    private final LongAdder rejected = new LongAdder();
+
+    private final long retryAfterSeconds;
+
+    public PasswordHasher(@Value("${usersystem.hashing.threads:0}") int threads,
+                          @Value("${usersystem.hashing.queue-capacity:100}") int queueCapacity,
+                          @Value("${usersystem.hashing.retry-after-seconds:1}") long retryAfterSeconds,
+                          @Value("${usersystem.hashing.bulk-max-in-flight:0}") int bulkMaxInFlight) {
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), threadFactory(), new ThreadPoolExecutor.AbortPolicy());
+        this.tasks = StatementCounter.propagating(DataSourceRouting.propagating(executor));
+        this.bulkPermits = new Semaphore(bulkMaxInFlight > 0 ? bulkMaxInFlight : poolSize);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    /**
+     * Run a task that needs the password encoder on the hashing pool.
+     *
+     * @throws ServiceUnavailableException if the pool is saturated
+     */
+    public <T> CompletableFuture<T> submit(Function<PasswordEncoder, T> task) {
+        try {
+            return CompletableFuture.supplyAsync(() -> task.apply(passwordEncoder), tasks);
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw new ServiceUnavailableException("Server is busy, please try again later!", retryAfterSeconds);
+        }
+    }
+
+    public CompletableFuture<String> encode(String rawPassword) {
+        return submit(encoder -> encoder.encode(rawPassword));
+    }
+
+    public CompletableFuture<Boolean> matches(String rawPassword, String encodedPassword) {
+        return submit(encoder -> encoder.matches(rawPassword, encodedPassword));
+    }
+
+    /**
+     * Hash a batch of passwords in parallel, with at most {@code usersystem.hashing.bulk-max-in-flight}
+     * hashes in the pool at once; the caller waits for a free permit. Work the pool cannot accept
+     * runs on the calling thread, which slows the caller down instead of failing the batch.
+     */
+    public List<String> encodeAll(List<String> rawPasswords) {
+        List<CompletableFuture<String>> futures = new ArrayList<>(rawPasswords.size());
+        for (String rawPassword : rawPasswords) {
+            bulkPermits.acquireUninterruptibly();
+            try {
+                futures.add(CompletableFuture.supplyAsync(() -> passwordEncoder.encode(rawPassword), executor)
+                        .whenComplete((encoded, e) -> bulkPermits.release()));
+            } catch (RejectedExecutionException e) {
+                bulkPermits.release();
+                futures.add(CompletableFuture.completedFuture(passwordEncoder.encode(rawPassword)));
+            }
+        }
+        return futures.stream().map(CompletableFuture::join).toList();
+    }
+
+    public int getQueueSize() {
+        return executor.getQueue().size();
+    }
+
+    public int getActiveCount() {
+        return executor.getActiveCount();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("usersystem.password.hasher.queue", this, PasswordHasher::getQueueSize)
+                .description("Hashing tasks waiting for a thread")
+                .register(registry);
+        Gauge.builder("usersystem.password.hasher.active", this, PasswordHasher::getActiveCount)
+                .description("Hashing threads busy")
+                .register(registry);
+        FunctionCounter.builder("usersystem.password.hasher.rejected", rejected, LongAdder::sum)
+                .description("Hashing tasks rejected because the queue was full")
+                .register(registry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    private static ThreadFactory threadFactory() {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "password-hasher-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,214 @@
+package com.lujx3419.usersystem.service;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.lujx3419.usersystem.model.RevokedToken;
+import com.lujx3419.usersystem.repository.RevokedTokenRepository;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Ids of individually revoked tokens, such as those of logged out sessions.
+ * <p>
+ * Revocations are stored in the database and mirrored in memory: an exact table whose entries
+ * expire together with their token, fronted by one Bloom filter per expiration day. A lookup only
+ * probes the filter of the token's own day, so most tokens are known not to be revoked without
+ * touching the table, at the same cost however many entries there are. Filters of past days are
+ * dropped whole, and a filter that fills up is rebuilt twice as large.
+ * <p>
+ * Revocations made by other instances reach this one by polling the table for rows revoked since
+ * the previous poll, so a logged out token is denied everywhere within one poll interval.
+ */
+@Component
+public class TokenDenylist implements MeterBinder {
+
+    private static final long DAY_MILLIS = TimeUnit.DAYS.toMillis(1);
+    private static final int DAYS = 16;
+
+    // Expired rows are deleted from the database at most this often
+    private static final long PURGE_INTERVAL_MILLIS = TimeUnit.HOURS.toMillis(1);
+
+    // Each poll reads back this far before the previous one, for rows committed late, replica lag and clock skew
+    private static final long POLL_OVERLAP_MILLIS = TimeUnit.MINUTES.toMillis(1);
+
+    @Autowired
+    private RevokedTokenRepository revokedTokenRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private final long expectedPerDay;
+    private final double falsePositiveRate;
+
+    // Revoked token ids with the expiration time of the token
+    private final Cache<String, Long> revoked = Caffeine.newBuilder()
+            .expireAfter(new Expiry<String, Long>() {
+                @Override
+                public long expireAfterCreate(String tokenId, Long expiresAt, long currentTime) {
+                    return TimeUnit.MILLISECONDS.toNanos(Math.max(expiresAt - System.currentTimeMillis(), 0));
+                }
+
+                @Override
+                public long expireAfterUpdate(String tokenId, Long expiresAt, long currentTime, long currentDuration) {
+                    return currentDuration;
+                }
+
+                @Override
+                public long expireAfterRead(String tokenId, Long expiresAt, long currentTime, long currentDuration) {
+                    return currentDuration;
+                }
+            })
+            .recordStats()
+            .build();
+
+    // Bloom filters by expiration day, in a ring longer than the token validity so that a slot
+    // is only reused once its day has passed; a full filter is replaced by a larger copy
+    private final AtomicReferenceArray<DayFilter> filters = new AtomicReferenceArray<>(DAYS);
+
+    private final LongAdder falsePositives = new LongAdder();
+
+    private volatile long nextPurge;
+
+    private volatile long lastPoll;
+
+    public TokenDenylist(@Value("${usersystem.revocation.expected-per-day:100000}") long expectedPerDay,
+                         @Value("${usersystem.revocation.false-positive-rate:0.01}") double falsePositiveRate) {
+        this.expectedPerDay = expectedPerDay;
+        this.falsePositiveRate = falsePositiveRate;
+    }
+
+    // Load the revocations still in force, dropping the others
+    @PostConstruct
+    public void load() {
+        long now = System.currentTimeMillis();
+        transactionTemplate.executeWithoutResult(status -> {
+            revokedTokenRepository.deleteExpired(now);
+            try (Stream<RevokedToken> tokens = revokedTokenRepository.streamUnexpired(now)) {
+                tokens.forEach(token -> remember(token.getJti(), token.getExpiresAt()));
+            }
+        });
+        nextPurge = now + PURGE_INTERVAL_MILLIS;
+        lastPoll = now;
+    }
+
+    // Pick up the revocations other instances have made since the previous poll
+    @Scheduled(fixedDelayString = "${usersystem.revocation.poll-interval:5s}",
+            initialDelayString = "${usersystem.revocation.poll-interval:5s}")
+    public void poll() {
+        long now = System.currentTimeMillis();
+        for (RevokedToken token : revokedTokenRepository.findRevokedSince(lastPoll - POLL_OVERLAP_MILLIS, now)) {
+            if (revoked.getIfPresent(token.getJti()) == null) {
+                remember(token.getJti(), token.getExpiresAt());
+            }
+        }
+        lastPoll = now;
+    }
+
+    /**
+     * Check whether a token has been revoked.
+     *
+     * @param tokenId   the token's jti claim
+     * @param expiresAt the token's expiration in epoch millis
+     */
+    public boolean isRevoked(String tokenId, long expiresAt) {
+        long day = expiresAt / DAY_MILLIS;
+        DayFilter filter = filters.get(slot(day));
+        if (filter == null || filter.day != day || !filter.bloom.mightContain(tokenId)) {
+            return false;
+        }
+        if (revoked.getIfPresent(tokenId) != null) {
+            return true;
+        }
+        falsePositives.increment();
+        return false;
+    }
+
+    /**
+     * Revoke a single token until it expires. Runs in the caller's transaction if there is one.
+     */
+    public void revoke(String tokenId, Long userId, long expiresAt) {
+        long now = System.currentTimeMillis();
+        if (expiresAt <= now) {
+            return;
+        }
+        revokedTokenRepository.insert(tokenId, userId, expiresAt, now);
+        if (now >= nextPurge) {
+            nextPurge = now + PURGE_INTERVAL_MILLIS;
+            revokedTokenRepository.deleteExpired(now);
+        }
+        // Denied right away; if the insert is rolled back the token merely stays denied on this instance
+        remember(tokenId, expiresAt);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, revoked, "token-denylist");
+        FunctionCounter.builder("usersystem.token.denylist.false.positives", falsePositives, LongAdder::sum)
+                .description("Token checks that passed the Bloom filter but were not revoked")
+                .register(registry);
+    }
+
+    private synchronized void remember(String tokenId, long expiresAt) {
+        // The exact entry goes first, a reader that finds the filter bit set also finds the entry
+        revoked.put(tokenId, expiresAt);
+
+        long day = expiresAt / DAY_MILLIS;
+        int slot = slot(day);
+        DayFilter filter = filters.get(slot);
+        if (filter == null || filter.day != day) {
+            // The slot is free or held by a day whose tokens have all expired
+            filter = new DayFilter(day, new BloomFilter(expectedPerDay, falsePositiveRate));
+            filter.bloom.put(tokenId);
+            filter.count = 1;
+            filters.set(slot, filter);
+        } else if (filter.count >= filter.bloom.capacity()) {
+            filters.set(slot, rebuild(day, filter.count + 1, filter.bloom.capacity() * 2));
+        } else {
+            filter.bloom.put(tokenId);
+            filter.count++;
+        }
+    }
+
+    // A larger filter for one day, holding every entry of that day
+    private DayFilter rebuild(long day, long count, long capacity) {
+        DayFilter filter = new DayFilter(day, new BloomFilter(capacity, falsePositiveRate));
+        revoked.asMap().forEach((tokenId, expiresAt) -> {
+            if (expiresAt / DAY_MILLIS == day) {
+                filter.bloom.put(tokenId);
+            }
+        });
+        filter.count = count;
+        return filter;
+    }
+
+    private static int slot(long day) {
+        return (int) Math.floorMod(day, (long) DAYS);
+    }
+
+    private static final class DayFilter {
+        final long day;
+        final BloomFilter bloom;
+        long count;  // Entries added, guarded by remember()
+
+        DayFilter(long day, BloomFilter bloom) {
+            this.day = day;
+            this.bloom = bloom;
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.lujx3419.usersystem.service;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.lujx3419.usersystem.common.CacheLoading;
+import com.lujx3419.usersystem.common.DataSourceRouting;
+import com.lujx3419.usersystem.repository.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * In-memory table of the current token version of each user.
+ * A token is only accepted while the version it carries matches the table, so bumping
+ * a user's version revokes every token issued to them before.
+ */
+@Component
+public class TokenVersionRegistry implements MeterBinder {
+
+    // Marker for users that no longer exist
+    private static final int REVOKED = -1;
+
+    private static final long MAX_ENTRIES = 100_000;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    // Entries are loaded on first use and dropped when the table is full; the database stays the source of truth
+    private final AsyncCache<Long, Integer> versions = Caffeine.newBuilder()
+            .maximumSize(MAX_ENTRIES)
+            .recordStats()
+            .buildAsync();
+
+    /**
+     * Check whether a token version is still the current one for the user.
+     */
+    public boolean isCurrent(Long userId, int tokenVersion) {
+        // Read from the primary so a lagging replica cannot bring back a revoked version
+        Integer current = CacheLoading.get(versions, userId, id -> DataSourceRouting.onPrimary(
+                () -> userRepository.findTokenVersionById(id).orElse(REVOKED)));
+        return current != null && current == tokenVersion;
+    }
+
+    /**
+     * Forget the user's version once the surrounding transaction commits, for writes that may
+     * have bumped it in the database directly. The next check reloads it.
+     */
+    public void refresh(Long userId) {
+        afterCommit(() -> versions.synchronous().invalidate(userId));
+    }
+
+    /**
+     * Invalidate all tokens of a user that is being deleted.
+     */
+    public void revokeDeleted(Long userId) {
+        afterCommit(() -> versions.synchronous().put(userId, REVOKED));
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, versions, "token-versions");
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
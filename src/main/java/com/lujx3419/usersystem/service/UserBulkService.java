@@ -0,0 +1,253 @@
+package com.lujx3419.usersystem.service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.lujx3419.usersystem.common.BusinessException;
+import com.lujx3419.usersystem.common.DataSourceRouting;
+import com.lujx3419.usersystem.common.SecurityUtil;
+import com.lujx3419.usersystem.common.ServiceUnavailableException;
+import com.lujx3419.usersystem.dto.request.BulkUserRequest;
+import com.lujx3419.usersystem.dto.request.BulkUserRequest.Action;
+import com.lujx3419.usersystem.dto.response.BulkJobResponse;
+import com.lujx3419.usersystem.dto.response.UserResponse;
+import com.lujx3419.usersystem.model.User;
+import com.lujx3419.usersystem.repository.UserRepository;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Admin operations on many users at once. A job runs in the background and works through
+ * its targets in id order, one chunk per transaction: a keyset query picks the chunk and a
+ * single set-based DELETE or UPDATE applies it. Committed chunks stay applied if a later one fails.
+ */
+@Service
+public class UserBulkService {
+
+    private static final Logger log = LoggerFactory.getLogger(UserBulkService.class);
+
+    private static final Set<String> ROLES = Set.of("USER", "ADMIN");
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private UserCache userCache;
+
+    @Autowired
+    private TokenVersionRegistry tokenVersions;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    private final int chunkSize;
+
+    // Jobs run one at a time, a few more may wait
+    private final ThreadPoolExecutor executor;
+
+    // Finished jobs are kept for a while so their outcome can still be read
+    private final Cache<String, Job> jobs;
+
+    public UserBulkService(@Value("${usersystem.bulk.chunk-size:1000}") int chunkSize,
+                           @Value("${usersystem.bulk.queue-capacity:10}") int queueCapacity,
+                           @Value("${usersystem.bulk.job-retention:1h}") Duration jobRetention) {
+        this.chunkSize = chunkSize;
+        this.executor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "user-bulk");
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.AbortPolicy());
+        this.jobs = Caffeine.newBuilder()
+                .expireAfterWrite(jobRetention)
+                .maximumSize(1000)
+                .build();
+    }
+
+    /**
+     * Validate the request and start it in the background.
+     *
+     * @throws ServiceUnavailableException if too many jobs are already waiting
+     */
+    public BulkJobResponse submit(BulkUserRequest request) {
+        // Permission check: only admin can run bulk operations
+        if (!SecurityUtil.isAdmin()) {
+            throw new BusinessException("Only admin can run bulk operations!");
+        }
+        validate(request);
+
+        // The caller is never a target, an admin cannot delete or demote themselves by accident
+        Long selfId = userCache.findByName(SecurityUtil.getCurrentUsername()).map(User::getId).orElse(null);
+        Job job = new Job(UUID.randomUUID().toString(), request.getAction(),
+                request.getIds() != null ? (int) request.getIds().stream().distinct().count() : null);
+        try {
+            // The writes of a job pin the job thread to the primary only until the job ends
+            DataSourceRouting.propagating(executor).execute(() -> run(job, request, selfId));
+        } catch (RejectedExecutionException e) {
+            throw new ServiceUnavailableException("Too many bulk operations are pending, please try again later!", 5);
+        }
+        jobs.put(job.id, job);
+        return job.toResponse();
+    }
+
+    public BulkJobResponse getJob(String jobId) {
+        // Permission check: only admin can view bulk operations
+        if (!SecurityUtil.isAdmin()) {
+            throw new BusinessException("Only admin can view bulk operations!");
+        }
+        return Optional.ofNullable(jobs.getIfPresent(jobId))
+                .map(Job::toResponse)
+                .orElseThrow(() -> new BusinessException("Bulk operation does not exist!"));
+    }
+
+    private void run(Job job, BulkUserRequest request, Long selfId) {
+        job.status = "RUNNING";
+        try {
+            if (request.getIds() != null) {
+                List<Long> ids = new ArrayList<>(new TreeSet<>(request.getIds()));
+                for (int from = 0; from < ids.size(); from += chunkSize) {
+                    List<Long> chunk = ids.subList(from, Math.min(from + chunkSize, ids.size()));
+                    transactionTemplate.executeWithoutResult(status ->
+                            apply(job, request, userRepository.findResponsesByIdIn(chunk), selfId));
+                    jobs.put(job.id, job);
+                }
+            } else {
+                String namePattern = request.getNamePrefix() != null ? likePrefix(request.getNamePrefix()) : null;
+                long afterId = 0;
+                while (true) {
+                    long after = afterId;
+                    Long last = transactionTemplate.execute(status -> {
+                        List<UserResponse> users = userRepository.findResponsesMatching(
+                                after, namePattern, request.getMinAge(), request.getMaxAge(), Limit.of(chunkSize));
+                        apply(job, request, users, selfId);
+                        return users.size() < chunkSize ? null : users.get(users.size() - 1).getId();
+                    });
+                    jobs.put(job.id, job);
+                    if (last == null) {
+                        break;
+                    }
+                    afterId = last;
+                }
+            }
+            job.status = "COMPLETED";
+        } catch (RuntimeException e) {
+            log.error("Bulk operation {} failed after {} users", job.id, job.affected, e);
+            job.error = e.getMessage();
+            job.status = "FAILED";
+        } finally {
+            // The worker thread is reused, do not let this job's writes pin later reads
+            DataSourceRouting.reset();
+            jobs.put(job.id, job);
+        }
+    }
+
+    // Apply the action to one chunk, inside the chunk's transaction
+    private void apply(Job job, BulkUserRequest request, List<UserResponse> users, Long selfId) {
+        List<UserResponse> targets = users.stream().filter(user -> !user.getId().equals(selfId)).toList();
+        job.processed += users.size();
+        if (targets.isEmpty()) {
+            return;
+        }
+
+        List<Long> ids = targets.stream().map(UserResponse::getId).toList();
+        int affected = switch (request.getAction()) {
+            case DELETE -> userRepository.deleteByIdIn(ids);
+            case SET_ROLE -> userRepository.updateRoleByIdIn(ids, request.getRole());
+            case DEACTIVATE -> userRepository.updateActiveByIdIn(ids, false);
+            case ACTIVATE -> userRepository.updateActiveByIdIn(ids, true);
+        };
+
+        for (UserResponse user : targets) {
+            if (request.getAction() == Action.DELETE) {
+                tokenVersions.revokeDeleted(user.getId());
+                eventPublisher.publishEvent(UserChangedEvent.deleted(user.getId(), user.getName()));
+            } else {
+                tokenVersions.refresh(user.getId());
+                eventPublisher.publishEvent(UserChangedEvent.updated(user.getId(), user.getName(), user.getName()));
+            }
+        }
+        job.affected += affected;
+    }
+
+    private static void validate(BulkUserRequest request) {
+        boolean byIds = request.getIds() != null;
+        boolean byFilter = request.getNamePrefix() != null || request.getMinAge() != null || request.getMaxAge() != null;
+        if (byIds == byFilter) {
+            throw new BusinessException("Specify either ids or a filter!");
+        }
+        if (byIds && request.getIds().contains(null)) {
+            throw new BusinessException("Ids cannot contain null!");
+        }
+        if (request.getNamePrefix() != null && request.getNamePrefix().isBlank()) {
+            throw new BusinessException("Name prefix cannot be blank!");
+        }
+        if (request.getMinAge() != null && request.getMaxAge() != null && request.getMinAge() > request.getMaxAge()) {
+            throw new BusinessException("Min age cannot be greater than max age!");
+        }
+        if (request.getAction() == Action.SET_ROLE && !ROLES.contains(request.getRole())) {
+            throw new BusinessException("Role must be one of " + ROLES + "!");
+        }
+    }
+
+    // LIKE pattern matching names that start with the prefix, '!' escapes wildcards in it
+    private static String likePrefix(String prefix) {
+        return prefix.replace("!", "!!").replace("%", "!%").replace("_", "!_") + "%";
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    // Progress of a job; written by the worker thread only, read by requests
+    private static final class Job {
+        private final String id;
+        private final Action action;
+        private final Integer total;
+        private volatile String status = "PENDING";
+        private volatile long processed;
+        private volatile long affected;
+        private volatile String error;
+
+        private Job(String id, Action action, Integer total) {
+            this.id = id;
+            this.action = action;
+            this.total = total;
+        }
+
+        private BulkJobResponse toResponse() {
+            BulkJobResponse response = new BulkJobResponse();
+            response.setJobId(id);
+            response.setAction(action.name());
+            response.setStatus(status);
+            response.setTotal(total);
+            response.setProcessed(processed);
+            response.setAffected(affected);
+            response.setError(error);
+            return response;
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.lujx3419.usersystem.service;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.Optional;
+
+import org.hibernate.StatelessSession;
+import org.hibernate.cache.spi.access.NaturalIdDataAccess;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.lujx3419.usersystem.common.CacheLoading;
+import com.lujx3419.usersystem.common.DataSourceRouting;
+import com.lujx3419.usersystem.model.User;
+import com.lujx3419.usersystem.repository.UserRepository;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Bounded, expiring cache of users by name in front of {@link UserRepository#findByName(String)}.
+ * Entries are dropped once a write to the user commits, so readers never see a stale role or password hash.
+ * The repository's writes leave Hibernate's second-level cache alone, so the user's entries there,
+ * which the loads of this cache go through, are dropped first.
+ */
+@Component
+public class UserCache implements MeterBinder {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private final AsyncCache<String, User> usersByName;
+
+    public UserCache(@Value("${usersystem.cache.users.max-size:10000}") long maxSize,
+                     @Value("${usersystem.cache.users.ttl:5m}") Duration ttl) {
+        this.usersByName = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .buildAsync();
+    }
+
+    /**
+     * Find a user by name. Each call returns its own detached copy, so callers may modify it freely.
+     */
+    public Optional<User> findByName(String name) {
+        // A load in progress is cached as a future; an eviction that commits meanwhile drops it, so a
+        // value read before the commit cannot survive the eviction that follows it.
+        // Loads read the primary, a lagging replica would put stale data back after an eviction.
+        User cached = CacheLoading.get(usersByName, name, key -> DataSourceRouting.onPrimary(
+                () -> userRepository.findByName(key).map(UserCache::copy).orElse(null)));
+        return Optional.ofNullable(cached).map(UserCache::copy);
+    }
+
+    public void evict(String name) {
+        if (name != null) {
+            usersByName.synchronous().invalidate(name);
+        }
+    }
+
+    public void evictAll() {
+        usersByName.synchronous().invalidateAll();
+    }
+
+    // Hit, miss and eviction counts
+    public CacheStats stats() {
+        return usersByName.synchronous().stats();
+    }
+
+    public long size() {
+        return usersByName.synchronous().estimatedSize();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, usersByName, "users");
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserChanged(UserChangedEvent event) {
+        evictSecondLevel(event);
+        // By key, which also cancels a load still in flight
+        evict(event.getName());
+        evict(event.getPreviousName());
+    }
+
+    // The user by id, and the ids of its old and new name
+    private void evictSecondLevel(UserChangedEvent event) {
+        SessionFactoryImplementor sessionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+        // A new user has nothing cached yet
+        if (event.getType() == UserChangedEvent.Type.CREATED
+                || !sessionFactory.getSessionFactoryOptions().isSecondLevelCacheEnabled()) {
+            return;
+        }
+        sessionFactory.getCache().evictEntityData(User.class, event.getUserId());
+        if (event.getType() == UserChangedEvent.Type.UPDATED && Objects.equals(event.getPreviousName(), event.getName())) {
+            return;
+        }
+        EntityPersister persister = sessionFactory.getMappingMetamodel().getEntityDescriptor(User.class);
+        NaturalIdDataAccess naturalIds = persister.getNaturalIdCacheAccessStrategy();
+        // Cache keys are built against a session; a stateless one opens no connection unless used
+        try (StatelessSession session = sessionFactory.openStatelessSession()) {
+            for (String name : new String[] {event.getName(), event.getPreviousName()}) {
+                if (name != null) {
+                    naturalIds.evict(naturalIds.generateCacheKey(name, persister, (SharedSessionContractImplementor) session));
+                }
+            }
+        }
+    }
+
+    private static User copy(User source) {
+        User user = new User();
+        user.setId(source.getId());
+        user.setName(source.getName());
+        user.setAge(source.getAge());
+        user.setPassword(source.getPassword());
+        user.setRole(source.getRole());
+        user.setTokenVersion(source.getTokenVersion());
+        user.setActive(source.isActive());
+        user.setVersion(source.getVersion());
+        return user;
+    }
+}
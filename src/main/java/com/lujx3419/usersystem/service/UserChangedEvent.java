@@ -0,0 +1,54 @@
+package com.lujx3419.usersystem.service;
+
+/**
+ * Published by the service layer whenever a user row is written.
+ * Listeners that keep derived state (caches, indexes) react to it after the transaction commits.
+ */
+public class UserChangedEvent {
+
+    public enum Type {
+        CREATED, UPDATED, DELETED
+    }
+
+    private final Type type;
+    private final Long userId;
+    private final String name;
+    private final String previousName;
+
+    public UserChangedEvent(Type type, Long userId, String name, String previousName) {
+        this.type = type;
+        this.userId = userId;
+        this.name = name;
+        this.previousName = previousName;
+    }
+
+    public static UserChangedEvent created(Long userId, String name) {
+        return new UserChangedEvent(Type.CREATED, userId, name, null);
+    }
+
+    public static UserChangedEvent updated(Long userId, String name, String previousName) {
+        return new UserChangedEvent(Type.UPDATED, userId, name, previousName);
+    }
+
+    public static UserChangedEvent deleted(Long userId, String name) {
+        return new UserChangedEvent(Type.DELETED, userId, null, name);
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    // Current name, null for deleted users
+    public String getName() {
+        return name;
+    }
+
+    // Name before the change, null for newly created users
+    public String getPreviousName() {
+        return previousName;
+    }
+}
@@ -0,0 +1,76 @@
+package com.lujx3419.usersystem.service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import com.lujx3419.usersystem.common.BusinessException;
+
+/**
+ * Position in a keyset-paginated user listing, encoded as an opaque URL-safe token.
+ * Listings sorted by name carry the name as well as the id, which breaks ties.
+ */
+public final class UserCursor {
+
+    public enum Sort {
+        ID, NAME;
+
+        public static Sort of(String value) {
+            if (value == null || value.isEmpty() || "id".equalsIgnoreCase(value)) {
+                return ID;
+            }
+            if ("name".equalsIgnoreCase(value)) {
+                return NAME;
+            }
+            throw new BusinessException("Unsupported sort: " + value);
+        }
+    }
+
+    // Start of a listing
+    static final UserCursor FIRST_BY_ID = new UserCursor(Sort.ID, 0L, null);
+    static final UserCursor FIRST_BY_NAME = new UserCursor(Sort.NAME, 0L, "");
+
+    private final Sort sort;
+    private final long id;
+    private final String name;
+
+    public UserCursor(Sort sort, long id, String name) {
+        this.sort = sort;
+        this.id = id;
+        this.name = name;
+    }
+
+    public static UserCursor start(Sort sort) {
+        return sort == Sort.NAME ? FIRST_BY_NAME : FIRST_BY_ID;
+    }
+
+    public static UserCursor decode(String token, Sort expectedSort) {
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = value.split(":", 3);
+            Sort sort = Sort.valueOf(parts[0]);
+            if (sort != expectedSort || (sort == Sort.NAME) != (parts.length == 3)) {
+                throw new BusinessException("Invalid cursor!");
+            }
+            return new UserCursor(sort, Long.parseLong(parts[1]), sort == Sort.NAME ? parts[2] : null);
+        } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+            throw new BusinessException("Invalid cursor!");
+        }
+    }
+
+    public String encode() {
+        String value = sort == Sort.NAME ? sort + ":" + id + ":" + name : sort + ":" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public Sort getSort() {
+        return sort;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+}
@@ -0,0 +1,226 @@
+package com.lujx3419.usersystem.service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lujx3419.usersystem.common.BusinessException;
+import com.lujx3419.usersystem.common.SecurityUtil;
+import com.lujx3419.usersystem.dto.response.ImportResultResponse;
+import com.lujx3419.usersystem.dto.response.ImportResultResponse.RowFailure;
+import com.lujx3419.usersystem.repository.UserRepository;
+
+/**
+ * Bulk user import from CSV ({@code name,password[,age]}) or NDJSON
+ * ({@code {"name":..,"password":..,"age":..}}) streams.
+ * Rows are read, hashed in parallel and inserted with JDBC batching one chunk at a time,
+ * each chunk in its own transaction. Bad rows are reported without aborting the import.
+ */
+@Service
+public class UserImportService {
+
+    public static final MediaType TEXT_CSV = MediaType.parseMediaType("text/csv");
+
+    private static final String INSERT_SQL =
+            "insert into users (name, age, password, role, token_version, active, version) values (?, ?, ?, 'USER', 0, true, 0)";
+
+    // Upper bound on failure details returned to the caller
+    private static final int MAX_REPORTED_FAILURES = 1000;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PasswordHasher passwordHasher;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${usersystem.import.batch-size:500}")
+    private int batchSize;
+
+    public ImportResultResponse importUsers(InputStream body, MediaType contentType) {
+        // Permission check: only admin can import users
+        if (!SecurityUtil.isAdmin()) {
+            throw new BusinessException("Only admin can import users!");
+        }
+        boolean csv = TEXT_CSV.isCompatibleWith(contentType);
+        if (!csv && !MediaType.APPLICATION_NDJSON.isCompatibleWith(contentType)) {
+            throw new BusinessException("Unsupported import format: " + contentType);
+        }
+
+        ImportResultResponse result = new ImportResultResponse();
+        List<ImportRow> chunk = new ArrayList<>(batchSize);
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8))) {
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank() || (csv && lineNumber == 1 && line.toLowerCase().startsWith("name,"))) {
+                    continue;
+                }
+                result.setTotal(result.getTotal() + 1);
+                try {
+                    chunk.add(csv ? parseCsv(lineNumber, line) : parseJson(lineNumber, line));
+                } catch (IllegalArgumentException | IOException e) {
+                    fail(result, lineNumber, null, "Malformed row");
+                    continue;
+                }
+                if (chunk.size() >= batchSize) {
+                    importChunk(chunk, result);
+                    chunk.clear();
+                }
+            }
+        } catch (IOException e) {
+            throw new BusinessException("Failed to read import data!");
+        }
+        if (!chunk.isEmpty()) {
+            importChunk(chunk, result);
+        }
+        return result;
+    }
+
+    private void importChunk(List<ImportRow> chunk, ImportResultResponse result) {
+        // Drop invalid rows and names that are taken, either in the database or earlier in this chunk
+        Set<String> taken = new HashSet<>(userRepository.findExistingNames(chunk.stream().map(ImportRow::name).toList()));
+        List<ImportRow> rows = new ArrayList<>(chunk.size());
+        for (ImportRow row : chunk) {
+            if (row.name() == null || row.name().isBlank()) {
+                fail(result, row.line(), row.name(), "Username cannot be blank");
+            } else if (row.password() == null || row.password().isBlank()) {
+                fail(result, row.line(), row.name(), "Password cannot be blank");
+            } else if (!taken.add(row.name())) {
+                fail(result, row.line(), row.name(), "Username already exists");
+            } else {
+                rows.add(row);
+            }
+        }
+        if (rows.isEmpty()) {
+            return;
+        }
+
+        List<String> encoded = passwordHasher.encodeAll(rows.stream().map(ImportRow::password).toList());
+        try {
+            transactionTemplate.executeWithoutResult(status -> insertBatch(rows, encoded));
+            result.setImported(result.getImported() + rows.size());
+        } catch (DataAccessException e) {
+            // A row was rejected by the database, fall back to row by row to find out which
+            for (int i = 0; i < rows.size(); i++) {
+                ImportRow row = rows.get(i);
+                List<ImportRow> single = List.of(row);
+                List<String> singleEncoded = List.of(encoded.get(i));
+                try {
+                    transactionTemplate.executeWithoutResult(status -> insertBatch(single, singleEncoded));
+                    result.setImported(result.getImported() + 1);
+                } catch (DataAccessException rowError) {
+                    fail(result, row.line(), row.name(), "Rejected by database");
+                }
+            }
+        }
+    }
+
+    private void insertBatch(List<ImportRow> rows, List<String> encodedPasswords) {
+        KeyHolder keys = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(
+                connection -> connection.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        ImportRow row = rows.get(i);
+                        ps.setString(1, row.name());
+                        if (row.age() != null) {
+                            ps.setInt(2, row.age());
+                        } else {
+                            ps.setNull(2, Types.INTEGER);
+                        }
+                        ps.setString(3, encodedPasswords.get(i));
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return rows.size();
+                    }
+                },
+                keys);
+
+        List<Map<String, Object>> generated = keys.getKeyList();
+        for (int i = 0; i < rows.size(); i++) {
+            Long id = i < generated.size() ? firstNumber(generated.get(i)) : null;
+            eventPublisher.publishEvent(UserChangedEvent.created(id, rows.get(i).name()));
+        }
+    }
+
+    private ImportRow parseCsv(int line, String text) {
+        String[] fields = text.split(",", -1);
+        if (fields.length < 2 || fields.length > 3) {
+            throw new IllegalArgumentException("Expected name,password[,age]");
+        }
+        Integer age = fields.length == 3 && !fields[2].isBlank() ? Integer.valueOf(fields[2].trim()) : null;
+        return new ImportRow(line, fields[0].trim(), fields[1], age);
+    }
+
+    private ImportRow parseJson(int line, String text) throws IOException {
+        JsonNode node = objectMapper.readTree(text);
+        if (node == null || !node.isObject()) {
+            throw new IllegalArgumentException("Expected a JSON object");
+        }
+        JsonNode age = node.get("age");
+        return new ImportRow(line,
+                node.hasNonNull("name") ? node.get("name").asText() : null,
+                node.hasNonNull("password") ? node.get("password").asText() : null,
+                age != null && age.canConvertToInt() ? age.asInt() : null);
+    }
+
+    private static void fail(ImportResultResponse result, int line, String name, String reason) {
+        result.setFailed(result.getFailed() + 1);
+        if (result.getFailures().size() < MAX_REPORTED_FAILURES) {
+            result.getFailures().add(new RowFailure(line, name, reason));
+        }
+    }
+
+    private static Long firstNumber(Map<String, Object> keys) {
+        for (Object value : keys.values()) {
+            if (value instanceof Number number) {
+                return number.longValue();
+            }
+        }
+        return null;
+    }
+
+    private record ImportRow(int line, String name, String password, Integer age) {
+    }
+}
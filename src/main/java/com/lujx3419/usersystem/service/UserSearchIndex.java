@@ -0,0 +1,472 @@
+package com.lujx3419.usersystem.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.lujx3419.usersystem.common.DataSourceRouting;
+import com.lujx3419.usersystem.common.ServiceUnavailableException;
+import com.lujx3419.usersystem.dto.response.UserResponse;
+import com.lujx3419.usersystem.repository.UserRepository;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * In-memory index behind the admin user search, by case-insensitive name prefix and age range.
+ * <p>
+ * Users are held in a snapshot of parallel arrays sorted by lower-cased name, with the positions
+ * of each age in an array of their own, so a prefix is a binary search and an age range a merge
+ * of a few sorted arrays; neither scans the table. The snapshot is loaded once the application
+ * has started, and the load is retried with a growing delay until it succeeds. Users named by {@link UserChangedEvent} are then re-read in batches on a background
+ * thread into a small sorted overlay, which is merged into a new snapshot once it has grown.
+ * Searches return ids in name order, the rows themselves are read from the database.
+ */
+@Component
+public class UserSearchIndex implements MeterBinder {
+
+    private static final Logger log = LoggerFactory.getLogger(UserSearchIndex.class);
+
+    // Ages with a bucket of their own; rows with other ages share one more bucket
+    static final int MAX_AGE = 150;
+    private static final int NO_AGE = Integer.MIN_VALUE;
+
+    private static final int BATCH_SIZE = 1000;
+
+    // Changes kept in the overlay before it is merged, at least this many or 1/32 of the snapshot
+    private static final int MIN_MERGE_THRESHOLD = 4096;
+
+    private static final long RETRY_AFTER_SECONDS = 5;
+
+    // Delay before the first retry of a failed load, doubled after each further failure up to the maximum
+    private static final long LOAD_RETRY_MILLIS = 1000;
+    private static final long MAX_LOAD_RETRY_MILLIS = 60_000;
+
+    private static final Comparator<Row> ORDER = Comparator.comparing(Row::key).thenComparingLong(Row::id);
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    // Loads and applies every change, so the index has a single writer
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "user-search-index");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Ids of changed users waiting to be re-read
+    private final Set<Long> pending = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean drainScheduled = new AtomicBoolean();
+
+    // Searches read under the read lock, the index thread changes the fields below under the write lock
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private Snapshot snapshot;  // Null until loaded
+    private final NavigableSet<Row> overlay = new TreeSet<>(ORDER);
+    private final Map<Long, Row> overlayById = new HashMap<>();
+    private final Set<Long> superseded = new HashSet<>();  // Users whose snapshot row must be skipped
+
+    // Loaded in the background, searches are answered with 503 until it is done
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        executor.execute(() -> loadAll(LOAD_RETRY_MILLIS));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserChanged(UserChangedEvent event) {
+        pending.add(event.getUserId());
+        if (drainScheduled.compareAndSet(false, true)) {
+            executor.execute(this::drain);
+        }
+    }
+
+    /**
+     * Ids of the users whose lower-cased name starts with the lower-cased prefix and whose age is
+     * in the range, in name order. Null or empty criteria match everything; users without an age
+     * only match searches without an age range.
+     *
+     * @throws ServiceUnavailableException while the index is still loading
+     */
+    public List<Long> search(String prefix, Integer minAge, Integer maxAge, int offset, int limit) {
+        String key = prefix == null ? "" : prefix.toLowerCase(Locale.ROOT);
+        AgeRange ages = minAge == null && maxAge == null ? null
+                : new AgeRange(minAge != null ? minAge : Integer.MIN_VALUE, maxAge != null ? maxAge : Integer.MAX_VALUE);
+
+        lock.readLock().lock();
+        try {
+            Snapshot current = snapshot;
+            if (current == null) {
+                throw new ServiceUnavailableException("Search index is loading, please try again later!", RETRY_AFTER_SECONDS);
+            }
+            Positions positions = key.isEmpty() && ages != null
+                    ? current.byAge(ages.low(), ages.high())
+                    : current.byPrefix(key);
+            Iterator<Row> changed = overlay.tailSet(new Row(key, Long.MIN_VALUE, NO_AGE), true).iterator();
+
+            // Merge the matches of the snapshot and of the overlay in name order
+            List<Long> ids = new ArrayList<>(limit);
+            int position = nextMatch(current, positions, ages);
+            Row row = nextMatch(changed, key, ages);
+            int skipped = 0;
+            while (ids.size() < limit && (position >= 0 || row != null)) {
+                long id;
+                if (row == null || (position >= 0 && current.compare(position, row) < 0)) {
+                    id = current.ids[position];
+                    position = nextMatch(current, positions, ages);
+                } else {
+                    id = row.id();
+                    row = nextMatch(changed, key, ages);
+                }
+                if (skipped++ >= offset) {
+                    ids.add(id);
+                }
+            }
+            return ids;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public boolean isLoaded() {
+        lock.readLock().lock();
+        try {
+            return snapshot != null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Rows held, including superseded snapshot rows until the next merge
+    public int rows() {
+        lock.readLock().lock();
+        try {
+            return (snapshot == null ? 0 : snapshot.ids.length) + overlay.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("usersystem.search.index.rows", this, UserSearchIndex::rows)
+                .description("Rows held by the search index, superseded ones included until the next merge")
+                .register(registry);
+        Gauge.builder("usersystem.search.index.pending", pending, Set::size)
+                .description("Changed users waiting to be re-read into the search index")
+                .register(registry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    // Read every user into a new snapshot, on failure try again after the given delay
+    private void loadAll(long retryMillis) {
+        try {
+            long start = System.nanoTime();
+            List<Row> rows = new ArrayList<>();
+            DataSourceRouting.onPrimary(() -> transactionTemplate.execute(status -> {
+                try (Stream<UserResponse> users = userRepository.streamAllResponses()) {
+                    users.forEach(user -> rows.add(row(user)));
+                }
+                return null;
+            }));
+            load(rows);
+            log.info("User search index loaded {} users in {} ms", rows.size(), (System.nanoTime() - start) / 1_000_000);
+        } catch (RuntimeException e) {
+            log.error("Could not load the user search index, retrying in {} ms", retryMillis, e);
+            executor.schedule(() -> loadAll(Math.min(retryMillis * 2, MAX_LOAD_RETRY_MILLIS)), retryMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    // Replace the snapshot with the given rows, in any order
+    void load(List<Row> rows) {
+        rows.sort(ORDER);
+        Snapshot loaded = Snapshot.build(rows.size(), rows.iterator());
+        lock.writeLock().lock();
+        try {
+            snapshot = loaded;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Re-read the pending users, a batch at a time
+    private void drain() {
+        drainScheduled.set(false);
+        if (snapshot == null) {
+            // Committed before the load that is still to come, which reads them anyway
+            pending.clear();
+            return;
+        }
+        while (!pending.isEmpty()) {
+            List<Long> batch = new ArrayList<>(BATCH_SIZE);
+            for (Iterator<Long> it = pending.iterator(); it.hasNext() && batch.size() < BATCH_SIZE; ) {
+                batch.add(it.next());
+                it.remove();
+            }
+            try {
+                // The primary, so that a lagging replica cannot put back what was just changed
+                List<UserResponse> users = DataSourceRouting.onPrimary(() -> userRepository.findResponsesByIdIn(batch));
+                apply(batch, users);
+            } catch (RuntimeException e) {
+                // Retried with the next change
+                pending.addAll(batch);
+                log.warn("Could not update the user search index, {} changes pending", pending.size(), e);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Apply the current state of the given users; ids without a row have been deleted.
+     */
+    void apply(Collection<Long> ids, List<UserResponse> users) {
+        Map<Long, UserResponse> found = new HashMap<>();
+        users.forEach(user -> found.put(user.getId(), user));
+        lock.writeLock().lock();
+        try {
+            for (Long id : ids) {
+                Row previous = overlayById.remove(id);
+                if (previous != null) {
+                    overlay.remove(previous);
+                }
+                superseded.add(id);
+                UserResponse user = found.get(id);
+                if (user != null) {
+                    Row row = row(user);
+                    overlay.add(row);
+                    overlayById.put(id, row);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        Snapshot current = snapshot;  // Only this thread replaces it
+        if (current != null && overlay.size() + superseded.size() > Math.max(MIN_MERGE_THRESHOLD, current.ids.length / 32)) {
+            merge(current);
+        }
+    }
+
+    // Fold the overlay into a new snapshot. Only the index thread changes the overlay, so it is
+    // read without the lock while searches go on against the old snapshot.
+    private void merge(Snapshot current) {
+        Iterator<Row> rows = new Iterator<>() {
+            int position = nextLive(0);
+            final Iterator<Row> changed = overlay.iterator();
+            Row row = changed.hasNext() ? changed.next() : null;
+
+            @Override
+            public boolean hasNext() {
+                return position < current.ids.length || row != null;
+            }
+
+            @Override
+            public Row next() {
+                if (row == null || (position < current.ids.length && current.compare(position, row) < 0)) {
+                    Row next = new Row(current.keys[position], current.ids[position], current.ages[position]);
+                    position = nextLive(position + 1);
+                    return next;
+                }
+                Row next = row;
+                row = changed.hasNext() ? changed.next() : null;
+                return next;
+            }
+
+            private int nextLive(int from) {
+                while (from < current.ids.length && superseded.contains(current.ids[from])) {
+                    from++;
+                }
+                return from;
+            }
+        };
+        // Superseded ids include users created since the snapshot, count the rows that stay
+        int live = 0;
+        for (long id : current.ids) {
+            if (!superseded.contains(id)) {
+                live++;
+            }
+        }
+        Snapshot merged = Snapshot.build(live + overlay.size(), rows);
+        lock.writeLock().lock();
+        try {
+            snapshot = merged;
+            overlay.clear();
+            overlayById.clear();
+            superseded.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Next snapshot position that matches and has not been superseded, -1 at the end
+    private int nextMatch(Snapshot current, Positions positions, AgeRange ages) {
+        for (int position = positions.next(); position >= 0; position = positions.next()) {
+            if ((ages == null || ages.contains(current.ages[position]))
+                    && (superseded.isEmpty() || !superseded.contains(current.ids[position]))) {
+                return position;
+            }
+        }
+        return -1;
+    }
+
+    private static Row nextMatch(Iterator<Row> changed, String key, AgeRange ages) {
+        while (changed.hasNext()) {
+            Row row = changed.next();
+            if (!row.key().startsWith(key)) {
+                return null;
+            }
+            if (ages == null || ages.contains(row.age())) {
+                return row;
+            }
+        }
+        return null;
+    }
+
+    static Row row(UserResponse user) {
+        return new Row(user.getName().toLowerCase(Locale.ROOT), user.getId(),
+                user.getAge() != null ? user.getAge() : NO_AGE);
+    }
+
+    record Row(String key, long id, int age) {
+    }
+
+    private record AgeRange(int low, int high) {
+        boolean contains(int age) {
+            return age != NO_AGE && age >= low && age <= high;
+        }
+    }
+
+    // Positions of candidate rows in ascending order, -1 at the end
+    private interface Positions {
+        int next();
+    }
+
+    /**
+     * Immutable, sorted by key and then id. positionsByAge[age] holds the ascending positions of
+     * the rows with that age, the last bucket those with an age outside 0..MAX_AGE.
+     */
+    private static final class Snapshot {
+        final String[] keys;
+        final long[] ids;
+        final int[] ages;
+        final int[][] positionsByAge;
+
+        private Snapshot(String[] keys, long[] ids, int[] ages) {
+            this.keys = keys;
+            this.ids = ids;
+            this.ages = ages;
+            int[] counts = new int[MAX_AGE + 2];
+            for (int age : ages) {
+                if (age != NO_AGE) {
+                    counts[bucket(age)]++;
+                }
+            }
+            this.positionsByAge = new int[MAX_AGE + 2][];
+            for (int bucket = 0; bucket < counts.length; bucket++) {
+                positionsByAge[bucket] = new int[counts[bucket]];
+            }
+            int[] filled = new int[MAX_AGE + 2];
+            for (int position = 0; position < ages.length; position++) {
+                if (ages[position] != NO_AGE) {
+                    int bucket = bucket(ages[position]);
+                    positionsByAge[bucket][filled[bucket]++] = position;
+                }
+            }
+        }
+
+        static Snapshot build(int size, Iterator<Row> sortedRows) {
+            String[] keys = new String[size];
+            long[] ids = new long[size];
+            int[] ages = new int[size];
+            for (int i = 0; i < size; i++) {
+                Row row = sortedRows.next();
+                keys[i] = row.key();
+                ids[i] = row.id();
+                ages[i] = row.age();
+            }
+            return new Snapshot(keys, ids, ages);
+        }
+
+        int compare(int position, Row row) {
+            int byKey = keys[position].compareTo(row.key());
+            return byKey != 0 ? byKey : Long.compare(ids[position], row.id());
+        }
+
+        // Rows whose key starts with the prefix: the first is found by binary search
+        Positions byPrefix(String prefix) {
+            int[] next = {lowerBound(prefix)};
+            return () -> next[0] < keys.length && keys[next[0]].startsWith(prefix) ? next[0]++ : -1;
+        }
+
+        // Rows of the buckets covering the age range, merged back into key order
+        Positions byAge(int low, int high) {
+            List<int[]> buckets = new ArrayList<>();
+            for (int age = Math.max(low, 0); age <= Math.min(high, MAX_AGE); age++) {
+                buckets.add(positionsByAge[age]);
+            }
+            if (low < 0 || high > MAX_AGE) {
+                buckets.add(positionsByAge[MAX_AGE + 1]);
+            }
+            int[][] lists = buckets.toArray(new int[0][]);
+            int[] heads = new int[lists.length];
+            return () -> {
+                int smallest = -1;
+                for (int i = 0; i < lists.length; i++) {
+                    if (heads[i] < lists[i].length
+                            && (smallest < 0 || lists[i][heads[i]] < lists[smallest][heads[smallest]])) {
+                        smallest = i;
+                    }
+                }
+                return smallest < 0 ? -1 : lists[smallest][heads[smallest]++];
+            };
+        }
+
+        private int lowerBound(String key) {
+            int index = Arrays.binarySearch(keys, key);
+            // Keys repeat when names differ only in case, step back to the first of them
+            if (index >= 0) {
+                while (index > 0 && keys[index - 1].equals(key)) {
+                    index--;
+                }
+                return index;
+            }
+            return -index - 1;
+        }
+
+        private static int bucket(int age) {
+            return age >= 0 && age <= MAX_AGE ? age : MAX_AGE + 1;
+        }
+    }
+}
@@ -1,36 +1,56 @@
 package com.lujx3419.usersystem.service;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import com.lujx3419.usersystem.dto.request.ChangePasswordRequest;
 import com.lujx3419.usersystem.dto.request.UserLoginRequest;
 import com.lujx3419.usersystem.dto.request.UserRegisterRequest;
 import com.lujx3419.usersystem.dto.request.UserRequest;
+import com.lujx3419.usersystem.dto.request.UserPatchRequest;
 import com.lujx3419.usersystem.dto.request.AdminRegisterRequest;
+import com.lujx3419.usersystem.dto.response.CursorPageResponse;
 import com.lujx3419.usersystem.dto.response.LoginResponse;
 import com.lujx3419.usersystem.dto.response.UserResponse;
 
 public interface UserService {
 
-    UserResponse updateUser(Long id, UserRequest request);
+    CompletableFuture<UserResponse> updateUser(Long id, UserRequest request);
+
+    UserResponse patchUser(Long id, UserPatchRequest request);
 
     UserResponse getUserById(Long id);
 
+    // Version of a user the caller may view, null otherwise; for conditional GETs
+    Long getUserVersion(Long id);
+
     void deleteUser(Long id);
 
     List<UserResponse> getAllUsers();
 
     List<UserResponse> getUsersByPage(int page, int size);
 
-    UserResponse registerUser(UserRegisterRequest request);
+    CursorPageResponse getUsersAfter(String after, int size, String sort);
+
+    List<UserResponse> searchUsers(String prefix, Integer minAge, Integer maxAge, int page, int size);
 
-    LoginResponse login(UserLoginRequest request);
+    StreamingResponseBody exportUsers();
 
-    void changePassword(Long userId, ChangePasswordRequest request);
+    CompletableFuture<UserResponse> registerUser(UserRegisterRequest request);
+
+    CompletableFuture<LoginResponse> login(UserLoginRequest request);
+
+    CompletableFuture<Void> changePassword(Long userId, ChangePasswordRequest request);
     
     UserResponse getCurrentUser();
     
-    UserResponse registerAdmin(AdminRegisterRequest request);
+    CompletableFuture<UserResponse> registerAdmin(AdminRegisterRequest request);
     
     LoginResponse refreshToken();
+
+    void logout(String token);
+
+    void revokeSessions(Long id);
 }
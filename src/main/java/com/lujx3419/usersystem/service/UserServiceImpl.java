@@ -1,31 +1,60 @@
 package com.lujx3419.usersystem.service;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.PageRequest;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 
 import com.lujx3419.usersystem.common.BusinessException;
+import com.lujx3419.usersystem.common.InvalidPasswordException;
+import com.lujx3419.usersystem.common.VersionConflictException;
 import com.lujx3419.usersystem.dto.request.ChangePasswordRequest;
 import com.lujx3419.usersystem.dto.request.AdminRegisterRequest;
 import com.lujx3419.usersystem.dto.request.UserLoginRequest;
+import com.lujx3419.usersystem.dto.request.UserPatchRequest;
 import com.lujx3419.usersystem.dto.request.UserRegisterRequest;
 import com.lujx3419.usersystem.dto.request.UserRequest;
+import com.lujx3419.usersystem.dto.response.CursorPageResponse;
 import com.lujx3419.usersystem.dto.response.LoginResponse;
 import com.lujx3419.usersystem.dto.response.UserResponse;
 import com.lujx3419.usersystem.mapper.UserMapper;
 import com.lujx3419.usersystem.model.User;
 import com.lujx3419.usersystem.repository.UserRepository;
 import com.lujx3419.usersystem.common.JwtUtil;
+import com.lujx3419.usersystem.common.TokenClaims;
 import com.lujx3419.usersystem.common.SecurityUtil;
 
 @Service
 @Transactional
 public class UserServiceImpl implements UserService {
 
+    private static final int MAX_PAGE_SIZE = 1000;
+
+    // Rows written between flushes of an export
+    private static final int EXPORT_FLUSH_INTERVAL = 500;
+
     @Autowired
     private UserRepository userRepository;
 
@@ -33,38 +62,131 @@ public class UserServiceImpl implements UserService {
     private UserMapper userMapper;
 
     @Autowired
-    private BCryptPasswordEncoder passwordEncoder;
+    private PasswordHasher passwordHasher;
+
+    // Writes that follow an asynchronous hash run in their own transaction
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    // Runs those writes, so that database latency does not hold the hashing threads
+    @Autowired
+    private DatabaseWriteExecutor databaseWriteExecutor;
 
     @Autowired
     private JwtUtil jwtUtil;
 
+    @Autowired
+    private TokenVersionRegistry tokenVersions;
+
+    @Autowired
+    private TokenDenylist tokenDenylist;
+
+    @Autowired
+    private UserCache userCache;
+
+    @Autowired
+    private UserSearchIndex userSearchIndex;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+
+
+    @Override
+    public CompletableFuture<UserResponse> updateUser(Long id, UserRequest request) {
+        // Permission check: only the user themselves or admin can update.
+        // Checked up front against the cached user so no hashing is wasted, and again in the update itself.
+        String owner = ownerGuard(id);
 
+        // If the frontend allows updating the password, also encrypt the password
+        boolean passwordChanged = request.getPassword() != null && !request.getPassword().isEmpty();
+        CompletableFuture<String> encodedPassword = passwordChanged
+                ? passwordHasher.encode(request.getPassword())
+                : CompletableFuture.completedFuture(null);
+
+        return encodedPassword.thenApplyAsync(encoded -> transactionTemplate.execute(status -> {
+            String previousName = previousName(id, owner);
+            if (userRepository.update(id, request.getVersion(), request.getName(), request.getAge(), encoded, owner) == 0) {
+                throw updateRejected(id, owner);
+            }
+            // A new name or password bumped the token version in the database
+            tokenVersions.refresh(id);
+            eventPublisher.publishEvent(UserChangedEvent.updated(id, request.getName(), previousName));
+            if (request.getVersion() != null) {
+                return new UserResponse(id, request.getName(), request.getAge(), request.getVersion() + 1);
+            }
+            return userRepository.findResponseById(id)
+                    .orElseThrow(() -> new BusinessException("User does not exist!"));
+        }), databaseWriteExecutor);
+    }
 
     @Override
-    public UserResponse updateUser(Long id, UserRequest request) {
-        User existing = userRepository.findById(id)
+    public UserResponse patchUser(Long id, UserPatchRequest request) {
+        String owner = ownerGuard(id);
+        String previousName = previousName(id, owner);
+        if (userRepository.patch(id, request.getVersion(), request.getName(), request.getAge(), owner) == 0) {
+            throw updateRejected(id, owner);
+        }
+        if (request.getName() != null) {
+            tokenVersions.refresh(id);
+        }
+        String name = request.getName() != null ? request.getName() : previousName;
+        eventPublisher.publishEvent(UserChangedEvent.updated(id, name, previousName));
+
+        if (request.getName() != null && request.getAge() != null) {
+            return new UserResponse(id, request.getName(), request.getAge(), request.getVersion() + 1);
+        }
+        return userRepository.findResponseById(id)
                 .orElseThrow(() -> new BusinessException("User does not exist!"));
+    }
 
-        // Permission check: only the user themselves or admin can update
-        if (!SecurityUtil.canAccessUser(existing.getName())) {
+    /**
+     * Name the update of the given user must be restricted to: null for admins, the caller's
+     * own name otherwise. Fails early when a non-admin targets another user.
+     */
+    private String ownerGuard(Long id) {
+        if (SecurityUtil.isAdmin()) {
+            return null;
+        }
+        String currentUsername = SecurityUtil.getCurrentUsername();
+        User self = currentUsername == null ? null : userCache.findByName(currentUsername).orElse(null);
+        if (self == null || !self.getId().equals(id)) {
             throw new BusinessException("No permission to update this user!");
         }
+        return currentUsername;
+    }
 
-        existing.setName(request.getName());
-        existing.setAge(request.getAge());
-
-        // If the frontend allows updating the password, also encrypt the password
-        if (request.getPassword() != null && !request.getPassword().isEmpty()) {
-            existing.setPassword(passwordEncoder.encode(request.getPassword()));
+    // The name the user had before an update, so that caches drop it by key. A non-admin's update
+    // only matches while the name is still the owner's; an admin's reads and locks the row first.
+    private String previousName(Long id, String owner) {
+        if (owner != null) {
+            return owner;
         }
+        return userRepository.findNameByIdForUpdate(id).orElse(null);
+    }
 
-        User updated = userRepository.save(existing);
-        return userMapper.toResponse(updated);
+    // Find out why a conditional update matched no row
+    private BusinessException updateRejected(Long id, String owner) {
+        UserResponse current = userRepository.findResponseById(id).orElse(null);
+        if (current == null) {
+            return new BusinessException("User does not exist!");
+        }
+        if (owner != null && !owner.equals(current.getName())) {
+            return new BusinessException("No permission to update this user!");
+        }
+        return new VersionConflictException("User has been modified by someone else, please reload and retry!");
     }
 
     @Override
+    @Transactional(readOnly = true)
     public UserResponse getUserById(Long id) {
-        User user = userRepository.findById(id)
+        UserResponse user = userRepository.findResponseById(id)
                 .orElseThrow(() -> new BusinessException("User does not exist!"));
         
         // Permission check: only the user themselves or admin can view
@@ -72,12 +194,24 @@ public class UserServiceImpl implements UserService {
             throw new BusinessException("No permission to view this user!");
         }
         
-        return userMapper.toResponse(user);
+        return user;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Long getUserVersion(Long id) {
+        if (SecurityUtil.isAdmin()) {
+            return userRepository.findVersionById(id).orElse(null);
+        }
+        // Other users may only view themselves, whose current version is in the user cache
+        String currentUsername = SecurityUtil.getCurrentUsername();
+        User self = currentUsername == null ? null : userCache.findByName(currentUsername).orElse(null);
+        return self != null && self.getId().equals(id) ? self.getVersion() : null;
     }
 
     @Override
     public void deleteUser(Long id) {
-        User user = userRepository.findById(id)
+        UserResponse user = userRepository.findResponseById(id)
                 .orElseThrow(() -> new BusinessException("User does not exist!"));
         
         // Permission check: only the user themselves or admin can delete
@@ -85,127 +219,265 @@ public class UserServiceImpl implements UserService {
             throw new BusinessException("No permission to delete this user!");
         }
         
-        userRepository.deleteById(id);
+        // A plain DELETE, deleteById would load the entity a second time
+        userRepository.deleteByIdIn(List.of(id));
+        tokenVersions.revokeDeleted(id);
+        eventPublisher.publishEvent(UserChangedEvent.deleted(id, user.getName()));
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<UserResponse> getAllUsers() {
         // Permission check: only admin can view all users
         if (!SecurityUtil.isAdmin()) {
             throw new BusinessException("Only admin can view all users!");
         }
         
-        List<User> users = userRepository.findAll();
-        return users.stream()
-                .map(userMapper::toResponse)
-                .toList();
+        return userRepository.findAllResponses();
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<UserResponse> getUsersByPage(int page, int size) {
         // Permission check: only admin can view paginated user list
         if (!SecurityUtil.isAdmin()) {
             throw new BusinessException("Only admin can view user list!");
         }
         
-        return userRepository.findAll(PageRequest.of(page, size))
-                .getContent()
-                .stream()
-                .map(userMapper::toResponse)
-                .toList();
+        return userRepository.findResponsePage(PageRequest.of(page, size));
     }
 
     @Override
-    public UserResponse registerUser(UserRegisterRequest request) {
-        if (userRepository.findByName(request.getName()).isPresent()) {
-            throw new BusinessException("Username already exists!");
+    @Transactional(readOnly = true)
+    public CursorPageResponse getUsersAfter(String after, int size, String sort) {
+        // Permission check: only admin can view paginated user list
+        if (!SecurityUtil.isAdmin()) {
+            throw new BusinessException("Only admin can view user list!");
+        }
+        if (size < 1 || size > MAX_PAGE_SIZE) {
+            throw new BusinessException("Page size must be between 1 and " + MAX_PAGE_SIZE + "!");
         }
 
-        User user = new User();
-        user.setName(request.getName());
-        user.setPassword(passwordEncoder.encode(request.getPassword()));
-        user.setRole("USER"); // Set default role for regular users
+        UserCursor.Sort order = UserCursor.Sort.of(sort);
+        UserCursor cursor = after == null || after.isEmpty() ? UserCursor.start(order) : UserCursor.decode(after, order);
+
+        // Fetch one extra row to know whether another page follows
+        Limit limit = Limit.of(size + 1);
+        List<UserResponse> users = order == UserCursor.Sort.NAME
+                ? userRepository.findResponsePageAfterName(cursor.getName(), cursor.getId(), limit)
+                : userRepository.findResponsePageAfterId(cursor.getId(), limit);
+
+        String nextCursor = null;
+        if (users.size() > size) {
+            users = users.subList(0, size);
+            UserResponse last = users.get(size - 1);
+            nextCursor = new UserCursor(order, last.getId(), last.getName()).encode();
+        }
 
-        User savedUser = userRepository.save(user);
-        return userMapper.toResponse(savedUser);
+        return new CursorPageResponse(users, nextCursor);
     }
 
     @Override
-    public LoginResponse login(UserLoginRequest request) {
-        User user = userRepository.findByName(request.getName())
-                .orElseThrow(() -> new BusinessException("Username does not exist!"));
+    @Transactional(readOnly = true)
+    public List<UserResponse> searchUsers(String prefix, Integer minAge, Integer maxAge, int page, int size) {
+        // Permission check: only admin can search users
+        if (!SecurityUtil.isAdmin()) {
+            throw new BusinessException("Only admin can search users!");
+        }
+        if (page < 0 || size < 1 || size > MAX_PAGE_SIZE) {
+            throw new BusinessException("Page must not be negative and size must be between 1 and " + MAX_PAGE_SIZE + "!");
+        }
+        if (minAge != null && maxAge != null && minAge > maxAge) {
+            throw new BusinessException("minAge must not be greater than maxAge!");
+        }
 
-        if (!passwordEncoder.matches(request.getPassword(), user.getPassword())) {
-            throw new BusinessException("Invalid password!");
+        // Matching ids come from the in-memory index, their rows from a single lookup by primary key
+        List<Long> ids = userSearchIndex.search(prefix, minAge, maxAge, Math.multiplyExact(page, size), size);
+        if (ids.isEmpty()) {
+            return List.of();
         }
+        Map<Long, UserResponse> users = userRepository.findResponsesByIdIn(ids).stream()
+                .collect(Collectors.toMap(UserResponse::getId, Function.identity()));
+        // In index order; a user deleted since the index was updated is left out
+        return ids.stream().map(users::get).filter(Objects::nonNull).toList();
+    }
 
-        String token = jwtUtil.generateToken(user.getName());
-        UserResponse userResponse = userMapper.toResponse(user);
-        
-        return new LoginResponse(token, userResponse);
+    // No transaction here: the body streams later, on another thread, in its own read-only one
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public StreamingResponseBody exportUsers() {
+        // Permission check: only admin can export users
+        if (!SecurityUtil.isAdmin()) {
+            throw new BusinessException("Only admin can export users!");
+        }
+
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        return out -> readOnly.executeWithoutResult(status -> writeUsers(out));
+    }
+
+    // Write one JSON object per line, holding only the current row in memory
+    private void writeUsers(OutputStream out) {
+        ObjectWriter writer = objectMapper.writerFor(UserResponse.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        try (Stream<UserResponse> users = userRepository.streamAllResponses();
+             JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.setRootValueSeparator(null);
+
+            int written = 0;
+            for (UserResponse user : (Iterable<UserResponse>) users::iterator) {
+                writer.writeValue(generator, user);
+                generator.writeRaw('\n');
+                if (++written % EXPORT_FLUSH_INTERVAL == 0) {
+                    generator.flush();
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
     }
 
     @Override
-    public void changePassword(Long userId, ChangePasswordRequest request) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new BusinessException("User does not exist!"));
+    public CompletableFuture<UserResponse> registerUser(UserRegisterRequest request) {
+        // A taken name is rejected by the unique index on insert, see GlobalExceptionHandler
+        return passwordHasher.encode(request.getPassword()).thenApplyAsync(encoded -> transactionTemplate.execute(status -> {
+            User user = new User();
+            user.setName(request.getName());
+            user.setPassword(encoded);
+            user.setRole("USER"); // Set default role for regular users
+
+            User savedUser = userRepository.save(user);
+            eventPublisher.publishEvent(UserChangedEvent.created(savedUser.getId(), savedUser.getName()));
+            return userMapper.toResponse(savedUser);
+        }), databaseWriteExecutor);
+    }
 
-        if (!passwordEncoder.matches(request.getOldPassword(), user.getPassword())) {
-            throw new BusinessException("Old password is incorrect!");
+    @Override
+    @Transactional(readOnly = true)
+    public CompletableFuture<LoginResponse> login(UserLoginRequest request) {
+        User user = userCache.findByName(request.getName())
+                .orElseThrow(() -> new BusinessException("Username does not exist!"));
+        if (!user.isActive()) {
+            throw new BusinessException("User has been deactivated!");
         }
 
-        String newEncodedPassword = passwordEncoder.encode(request.getNewPassword());
-        user.setPassword(newEncodedPassword);
-        userRepository.save(user);
+        return passwordHasher.submit(encoder -> {
+            if (!encoder.matches(request.getPassword(), user.getPassword())) {
+                throw new InvalidPasswordException();
+            }
+            // While the raw password is known, re-encode hashes whose cost differs from the configured one
+            return encoder.upgradeEncoding(user.getPassword()) ? encoder.encode(request.getPassword()) : null;
+        }).thenApplyAsync(rehashed -> {
+            if (rehashed != null) {
+                transactionTemplate.executeWithoutResult(status -> {
+                    if (userRepository.updatePasswordHash(user.getId(), user.getPassword(), rehashed) > 0) {
+                        eventPublisher.publishEvent(UserChangedEvent.updated(user.getId(), user.getName(), user.getName()));
+                    }
+                });
+            }
+
+            String token = jwtUtil.generateToken(user);
+            UserResponse userResponse = userMapper.toResponse(user);
+
+            return new LoginResponse(token, userResponse);
+        }, databaseWriteExecutor);
     }
 
     @Override
+    public CompletableFuture<Void> changePassword(Long userId, ChangePasswordRequest request) {
+        User user = userRepository.findById(userId)
+                .orElseThrow(() -> new BusinessException("User does not exist!"));
+
+        // Verify the old password and hash the new one in a single task on the hashing pool
+        return passwordHasher.submit(encoder -> {
+            if (!encoder.matches(request.getOldPassword(), user.getPassword())) {
+                throw new BusinessException("Old password is incorrect!");
+            }
+            return encoder.encode(request.getNewPassword());
+        }).thenAcceptAsync(newEncodedPassword -> transactionTemplate.executeWithoutResult(status -> {
+            // Compare-and-set on the hash: a concurrent change since the check wins
+            if (userRepository.changePassword(user.getId(), user.getPassword(), newEncodedPassword) == 0) {
+                throw new VersionConflictException("Password has been changed by someone else, please retry!");
+            }
+            tokenVersions.refresh(user.getId());
+            eventPublisher.publishEvent(UserChangedEvent.updated(user.getId(), user.getName(), user.getName()));
+        }), databaseWriteExecutor);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
     public UserResponse getCurrentUser() {
         String currentUsername = SecurityUtil.getCurrentUsername();
         if (currentUsername == null) {
             throw new BusinessException("User not logged in!");
         }
         
-        User user = userRepository.findByName(currentUsername)
+        User user = userCache.findByName(currentUsername)
                 .orElseThrow(() -> new BusinessException("User does not exist!"));
         
         return userMapper.toResponse(user);
     }
 
     @Override
-    public UserResponse registerAdmin(AdminRegisterRequest request) {
+    public CompletableFuture<UserResponse> registerAdmin(AdminRegisterRequest request) {
         // Validate admin registration code
         if (!"ADMIN123".equals(request.getAdminCode())) {
             throw new BusinessException("Admin registration code is incorrect!");
         }
 
-        if (userRepository.findByName(request.getName()).isPresent()) {
-            throw new BusinessException("Username already exists!");
-        }
-
-        User user = new User();
-        user.setName(request.getName());
-        user.setPassword(passwordEncoder.encode(request.getPassword()));
-        user.setRole("ADMIN"); // Set as admin role
-
-        User savedUser = userRepository.save(user);
-        return userMapper.toResponse(savedUser);
+        // A taken name is rejected by the unique index on insert, see GlobalExceptionHandler
+        return passwordHasher.encode(request.getPassword()).thenApplyAsync(encoded -> transactionTemplate.execute(status -> {
+            User user = new User();
+            user.setName(request.getName());
+            user.setPassword(encoded);
+            user.setRole("ADMIN"); // Set as admin role
+
+            User savedUser = userRepository.save(user);
+            eventPublisher.publishEvent(UserChangedEvent.created(savedUser.getId(), savedUser.getName()));
+            return userMapper.toResponse(savedUser);
+        }), databaseWriteExecutor);
     }
 
     @Override
+    @Transactional(readOnly = true)
     public LoginResponse refreshToken() {
         String currentUsername = SecurityUtil.getCurrentUsername();
         if (currentUsername == null) {
             throw new BusinessException("User not logged in!");
         }
         
-        User user = userRepository.findByName(currentUsername)
+        User user = userCache.findByName(currentUsername)
                 .orElseThrow(() -> new BusinessException("User does not exist!"));
         
-        String newToken = jwtUtil.generateToken(user.getName());
+        String newToken = jwtUtil.generateToken(user);
         UserResponse userResponse = userMapper.toResponse(user);
         
         return new LoginResponse(newToken, userResponse);
     }
 
+    @Override
+    public void logout(String token) {
+        // Already verified by the JWT filter, so this is served from the verified-token cache
+        TokenClaims claims = jwtUtil.parseToken(token);
+        if (claims.getTokenId() == null) {
+            throw new BusinessException("This token cannot be revoked, please change your password instead!");
+        }
+        tokenDenylist.revoke(claims.getTokenId(), claims.getUserId(), claims.getExpiresAt());
+    }
+
+    @Override
+    public void revokeSessions(Long id) {
+        // Permission check: only admin can revoke the sessions of a user
+        if (!SecurityUtil.isAdmin()) {
+            throw new BusinessException("Only admin can revoke user sessions!");
+        }
+        UserResponse user = userRepository.findResponseById(id)
+                .orElseThrow(() -> new BusinessException("User does not exist!"));
+
+        // One version bump revokes every token of the user, without listing them
+        userRepository.incrementTokenVersion(id);
+        tokenVersions.refresh(id);
+        eventPublisher.publishEvent(UserChangedEvent.updated(id, user.getName(), user.getName()));
+    }
 }
@@ -0,0 +1,129 @@
+package com.lujx3419.usersystem.reactive;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.lujx3419.usersystem.common.JwtUtil;
+import com.lujx3419.usersystem.common.TokenClaims;
+
+/**
+ * Smoke test of the reactive variant on the in-memory database. Built and run only with -Preactive.
+ */
+@SpringBootTest(classes = ReactiveUsersystemApplication.class, webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {
+                "spring.main.web-application-type=reactive",
+                "usersystem.bcrypt.strength=4",
+                "usersystem.bcrypt.min-strength=4",
+                "usersystem.rate-limit.enabled=false",
+                // One hashing thread and one queue slot, so two blocked tasks saturate the pool
+                "usersystem.hashing.threads=1",
+                "usersystem.hashing.queue-capacity=1"
+        })
+@ActiveProfiles({"reactive", "embedded"})
+class ReactiveUserApiTests {
+
+    private static final String PASSWORD = "reactive-password";
+
+    @Autowired
+    private WebTestClient client;
+
+    @Autowired
+    private ReactivePasswordHasher passwordHasher;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    @Autowired
+    private DatabaseClient databaseClient;
+
+    @Test
+    void registerLoginReadAndUpdate() {
+        post("/users/register", Map.of("name", "reactive_user", "password", PASSWORD), null)
+                .expectStatus().isOk()
+                .expectBody().jsonPath("$.code").isEqualTo(200).jsonPath("$.data.name").isEqualTo("reactive_user");
+
+        JsonNode session = post("/users/login", Map.of("name", "reactive_user", "password", PASSWORD), null)
+                .expectStatus().isOk()
+                .expectBody(JsonNode.class).returnResult().getResponseBody().path("data");
+        String token = session.path("token").asText();
+        long id = session.path("user").path("id").asLong();
+
+        client.get().uri("/users/me").headers(headers -> headers.setBearerAuth(token)).exchange()
+                .expectStatus().isOk()
+                .expectBody().jsonPath("$.data.id").isEqualTo(id).jsonPath("$.data.name").isEqualTo("reactive_user");
+
+        client.put().uri("/users/{id}", id).headers(headers -> headers.setBearerAuth(token))
+                .bodyValue(Map.of("name", "reactive_user", "age", 30, "version", 0)).exchange()
+                .expectStatus().isOk()
+                .expectBody().jsonPath("$.data.version").isEqualTo(1);
+        // The same version again was superseded by the first update
+        client.put().uri("/users/{id}", id).headers(headers -> headers.setBearerAuth(token))
+                .bodyValue(Map.of("name", "reactive_user", "age", 31, "version", 0)).exchange()
+                .expectStatus().isEqualTo(HttpStatus.CONFLICT)
+                .expectBody().jsonPath("$.code").isEqualTo(409);
+
+        client.get().uri("/users/me").exchange().expectStatus().isForbidden();
+    }
+
+    @Test
+    void tokenLoggedOutOnTheServletApplicationIsRejected() {
+        post("/users/register", Map.of("name", "reactive_revoked", "password", PASSWORD), null).expectStatus().isOk();
+        String token = post("/users/login", Map.of("name", "reactive_revoked", "password", PASSWORD), null)
+                .expectStatus().isOk()
+                .expectBody(JsonNode.class).returnResult().getResponseBody().path("data").path("token").asText();
+        client.get().uri("/users/me").headers(headers -> headers.setBearerAuth(token)).exchange().expectStatus().isOk();
+
+        // The row the servlet application writes on logout
+        TokenClaims claims = jwtUtil.parseToken(token);
+        databaseClient.sql("insert into revoked_tokens (jti, user_id, expires_at, revoked_at) values (:jti, :userId, :expiresAt, :revokedAt)")
+                .bind("jti", claims.getTokenId())
+                .bind("userId", claims.getUserId())
+                .bind("expiresAt", claims.getExpiresAt())
+                .bind("revokedAt", System.currentTimeMillis())
+                .then().block();
+
+        client.get().uri("/users/me").headers(headers -> headers.setBearerAuth(token)).exchange().expectStatus().isForbidden();
+    }
+
+    @Test
+    void registrationIsRejectedWhileTheHasherIsSaturated() {
+        CompletableFuture<Void> running = new CompletableFuture<>();
+        CompletableFuture<Void> release = new CompletableFuture<>();
+        // One task holds the only thread; once it runs, the other takes the only queue slot
+        passwordHasher.submit(encoder -> {
+            running.complete(null);
+            return release.join();
+        }).subscribe();
+        running.join();
+        passwordHasher.submit(encoder -> release.join()).subscribe();
+        try {
+            post("/users/register", Map.of("name", "reactive_busy", "password", PASSWORD), null)
+                    .expectStatus().isEqualTo(HttpStatus.SERVICE_UNAVAILABLE)
+                    .expectHeader().exists(HttpHeaders.RETRY_AFTER)
+                    .expectBody().jsonPath("$.code").isEqualTo(503);
+        } finally {
+            release.complete(null);
+        }
+    }
+
+    private WebTestClient.ResponseSpec post(String uri, Object body, String token) {
+        return client.post().uri(uri)
+                .headers(headers -> {
+                    if (token != null) {
+                        headers.setBearerAuth(token);
+                    }
+                })
+                .bodyValue(body)
+                .exchange();
+    }
+}
@@ -0,0 +1,27 @@
+package com.lujx3419.usersystem.reactive;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.bind.support.WebExchangeBindException;
+
+import com.lujx3419.usersystem.common.ApiResponse;
+
+/**
+ * Reports validation errors the way {@link com.lujx3419.usersystem.common.GlobalExceptionHandler}
+ * does; WebFlux raises its own exception type for them. Every other error is left to that handler.
+ */
+@RestControllerAdvice
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveExceptionHandler {
+
+    // Handle validation exceptions
+    @ExceptionHandler(WebExchangeBindException.class)
+    public ApiResponse<String> handleValidationException(WebExchangeBindException ex) {
+        String errorMsg = ex.getBindingResult().getFieldError().getDefaultMessage();
+        return ApiResponse.error(errorMsg);
+    }
+}
@@ -0,0 +1,126 @@
+package com.lujx3419.usersystem.reactive;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.ReactiveSecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+
+import com.lujx3419.usersystem.common.JwtUtil;
+import com.lujx3419.usersystem.common.TokenClaims;
+import com.lujx3419.usersystem.model.User;
+
+import io.jsonwebtoken.ExpiredJwtException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import reactor.core.publisher.Mono;
+
+/**
+ * Reactive counterpart of {@link com.lujx3419.usersystem.config.JwtAuthenticationFilter}.
+ * The signature check is CPU-only and cached by {@link JwtUtil}; the user row is then read
+ * without blocking, together with the token's entry in the denylist table, and serves both the
+ * revocation check and the principal.
+ * Not a bean, so WebFlux does not run it outside the security chain as well.
+ */
+public class ReactiveJwtAuthenticationFilter implements WebFilter {
+
+    private static final Set<String> PUBLIC_PATHS = Set.of("/users/login", "/users/register", "/users/register/admin");
+
+    private final JwtUtil jwtUtil;
+
+    private final ReactiveUserRepository userRepository;
+
+    private enum Outcome {
+        NO_TOKEN, INVALID, EXPIRED, REVOKED, AUTHENTICATED
+    }
+
+    private final Map<Outcome, Counter> outcomes = new EnumMap<>(Outcome.class);
+
+    public ReactiveJwtAuthenticationFilter(JwtUtil jwtUtil, ReactiveUserRepository userRepository, MeterRegistry meterRegistry) {
+        this.jwtUtil = jwtUtil;
+        this.userRepository = userRepository;
+        for (Outcome outcome : Outcome.values()) {
+            outcomes.put(outcome, Counter.builder("usersystem.auth.filter")
+                    .description("Requests seen by the JWT filter, by outcome")
+                    .tag("outcome", outcome.name().toLowerCase())
+                    .register(meterRegistry));
+        }
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        // For login and registration interfaces, skip JWT validation and allow the request to proceed
+        if (PUBLIC_PATHS.contains(exchange.getRequest().getPath().value())) {
+            return chain.filter(exchange);
+        }
+
+        String authorizationHeader = exchange.getRequest().getHeaders().getFirst(HttpHeaders.AUTHORIZATION);
+        if (authorizationHeader == null || !authorizationHeader.startsWith("Bearer ")) {
+            return proceed(Outcome.NO_TOKEN, exchange, chain);
+        }
+
+        TokenClaims claims;
+        try {
+            claims = jwtUtil.parseToken(authorizationHeader.substring(7));
+        } catch (ExpiredJwtException e) {
+            return proceed(Outcome.EXPIRED, exchange, chain);
+        } catch (Exception e) {
+            return proceed(Outcome.INVALID, exchange, chain);
+        }
+
+        // Tokens issued before versioning carry no id and are checked against the user record by name;
+        // the servlet application records logged out tokens in revoked_tokens, read along with the row
+        Mono<User> user;
+        if (claims.getUserId() == null) {
+            user = userRepository.findByName(claims.getSubject());
+        } else if (claims.getTokenId() == null) {
+            user = userRepository.findById(claims.getUserId());
+        } else {
+            user = userRepository.findByIdUnlessRevoked(claims.getUserId(), claims.getTokenId());
+        }
+        // The chain completes empty, so the lookup result is resolved before it runs
+        return user
+                .filter(found -> isCurrent(found, claims))
+                .map(Optional::of)
+                .defaultIfEmpty(Optional.empty())
+                .flatMap(found -> {
+                    if (found.isEmpty()) {
+                        return proceed(Outcome.REVOKED, exchange, chain);
+                    }
+                    outcomes.get(Outcome.AUTHENTICATED).increment();
+                    return chain.filter(exchange)
+                            .contextWrite(ReactiveSecurityContextHolder.withAuthentication(authentication(found.get())));
+                });
+    }
+
+    // A deleted, renamed or deactivated user, or a bumped token version, revokes the token
+    private static boolean isCurrent(User user, TokenClaims claims) {
+        return user.isActive()
+                && user.getName().equals(claims.getSubject())
+                && (claims.getTokenVersion() == null || claims.getTokenVersion() == user.getTokenVersion());
+    }
+
+    private static UsernamePasswordAuthenticationToken authentication(User user) {
+        UserDetails userDetails = org.springframework.security.core.userdetails.User.withUsername(user.getName())
+                .password("")
+                .authorities(user.getRole())
+                .build();
+        UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
+                userDetails, null, userDetails.getAuthorities());
+        // The row is handed on to the service, which then does not read it again
+        authentication.setDetails(user);
+        return authentication;
+    }
+
+    private Mono<Void> proceed(Outcome outcome, ServerWebExchange exchange, WebFilterChain chain) {
+        outcomes.get(outcome).increment();
+        return chain.filter(exchange);
+    }
+}
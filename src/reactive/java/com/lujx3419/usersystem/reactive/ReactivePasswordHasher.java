@@ -0,0 +1,76 @@
+package com.lujx3419.usersystem.reactive;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import com.lujx3419.usersystem.common.ServiceUnavailableException;
+
+import jakarta.annotation.PreDestroy;
+import reactor.core.publisher.Mono;
+
+/**
+ * Runs password hashing on a bounded pool, away from the event loop, like
+ * {@link com.lujx3419.usersystem.service.PasswordHasher} does for the servlet stack.
+ * When the queue is full new work fails immediately instead of waiting.
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactivePasswordHasher {
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    private final ThreadPoolExecutor executor;
+
+    private final long retryAfterSeconds;
+
+    public ReactivePasswordHasher(@Value("${usersystem.hashing.threads:0}") int threads,
+                                  @Value("${usersystem.hashing.queue-capacity:100}") int queueCapacity,
+                                  @Value("${usersystem.hashing.retry-after-seconds:1}") long retryAfterSeconds) {
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), threadFactory(), new ThreadPoolExecutor.AbortPolicy());
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    /**
+     * Run a task that needs the password encoder on the hashing pool, as a single pool task per
+     * subscription; {@code subscribeOn} could schedule the request signal as a second one and lose
+     * its rejection. Fails with {@link ServiceUnavailableException} if the pool is saturated.
+     */
+    public <T> Mono<T> submit(Function<PasswordEncoder, T> task) {
+        return Mono.fromFuture(() -> CompletableFuture.supplyAsync(() -> task.apply(passwordEncoder), executor))
+                .onErrorMap(RejectedExecutionException.class,
+                        e -> new ServiceUnavailableException("Server is busy, please try again later!", retryAfterSeconds));
+    }
+
+    public Mono<String> encode(String rawPassword) {
+        return submit(encoder -> encoder.encode(rawPassword));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    private static ThreadFactory threadFactory() {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "password-hasher-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,135 @@
+package com.lujx3419.usersystem.reactive;
+
+import java.net.InetSocketAddress;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.lujx3419.usersystem.common.ApiResponse;
+import com.lujx3419.usersystem.common.InvalidPasswordException;
+import com.lujx3419.usersystem.dto.request.AdminRegisterRequest;
+import com.lujx3419.usersystem.dto.request.ChangePasswordRequest;
+import com.lujx3419.usersystem.dto.request.UserLoginRequest;
+import com.lujx3419.usersystem.dto.request.UserPatchRequest;
+import com.lujx3419.usersystem.dto.request.UserRegisterRequest;
+import com.lujx3419.usersystem.dto.request.UserRequest;
+import com.lujx3419.usersystem.dto.response.CursorPageResponse;
+import com.lujx3419.usersystem.dto.response.LoginResponse;
+import com.lujx3419.usersystem.dto.response.UserResponse;
+import com.lujx3419.usersystem.service.LoginRateLimiter;
+
+import jakarta.validation.Valid;
+import reactor.core.publisher.Mono;
+
+/**
+ * The user endpoints of {@link com.lujx3419.usersystem.controller.UserController} on WebFlux.
+ * Import, export and bulk operations are served by the servlet application only.
+ */
+@RestController
+@RequestMapping("/users")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveUserController {
+
+    @Autowired
+    private ReactiveUserService userService;
+
+    @Autowired
+    private LoginRateLimiter loginRateLimiter;
+
+    @PostMapping("/register")
+    public Mono<ApiResponse<UserResponse>> registerUser(@Valid @RequestBody UserRegisterRequest request,
+                                                        ServerHttpRequest httpRequest) {
+        loginRateLimiter.checkRegistration(clientIp(httpRequest));
+        return userService.registerUser(request).map(ApiResponse::ok);
+    }
+
+    @PostMapping("/register/admin")
+    public Mono<ApiResponse<UserResponse>> registerAdmin(@Valid @RequestBody AdminRegisterRequest request,
+                                                         ServerHttpRequest httpRequest) {
+        loginRateLimiter.checkRegistration(clientIp(httpRequest));
+        return userService.registerAdmin(request).map(ApiResponse::ok);
+    }
+
+    @PostMapping("/login")
+    public Mono<ApiResponse<LoginResponse>> login(@Valid @RequestBody UserLoginRequest request,
+                                                  ServerHttpRequest httpRequest) {
+        String clientIp = clientIp(httpRequest);
+        loginRateLimiter.checkLogin(request.getName(), clientIp);
+        return userService.login(request)
+                .doOnError(InvalidPasswordException.class, e -> loginRateLimiter.recordFailedLogin(request.getName(), clientIp))
+                .map(ApiResponse::ok);
+    }
+
+    @GetMapping("/me")
+    public Mono<ApiResponse<UserResponse>> getCurrentUser() {
+        return userService.getCurrentUser().map(ApiResponse::ok);
+    }
+
+    @GetMapping("/{id}")
+    public Mono<ApiResponse<UserResponse>> getUser(@PathVariable Long id) {
+        return userService.getUserById(id).map(ApiResponse::ok);
+    }
+
+    @GetMapping
+    public Mono<ApiResponse<List<UserResponse>>> getAllUsers() {
+        return userService.getAllUsers().map(ApiResponse::ok);
+    }
+
+    @GetMapping(value = "/page", params = "page")
+    public Mono<ApiResponse<List<UserResponse>>> getUsersByPage(@RequestParam int page, @RequestParam int size) {
+        return userService.getUsersByPage(page, size).map(ApiResponse::ok);
+    }
+
+    // Keyset pagination: pass the nextCursor of the previous page as "after"
+    @GetMapping(value = "/page", params = "!page")
+    public Mono<ApiResponse<CursorPageResponse>> getUsersAfter(
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(defaultValue = "id") String sort) {
+        return userService.getUsersAfter(after, size, sort).map(ApiResponse::ok);
+    }
+
+    @PutMapping("/{id}")
+    public Mono<ApiResponse<UserResponse>> updateUser(@PathVariable Long id, @Valid @RequestBody UserRequest request) {
+        return userService.updateUser(id, request).map(ApiResponse::ok);
+    }
+
+    // Partial update: only the fields sent are changed, guarded by the version the client read
+    @PatchMapping("/{id}")
+    public Mono<ApiResponse<UserResponse>> patchUser(@PathVariable Long id, @Valid @RequestBody UserPatchRequest request) {
+        return userService.patchUser(id, request).map(ApiResponse::ok);
+    }
+
+    @PutMapping("/{id}/password")
+    public Mono<ApiResponse<String>> changePassword(@PathVariable Long id, @RequestBody ChangePasswordRequest request) {
+        return userService.changePassword(id, request)
+                .thenReturn(ApiResponse.ok("Password changed successfully!"));
+    }
+
+    @DeleteMapping("/{id}")
+    public Mono<ApiResponse<String>> deleteUser(@PathVariable Long id) {
+        return userService.deleteUser(id).thenReturn(ApiResponse.ok("User ID " + id + " deleted!"));
+    }
+
+    @PostMapping("/refresh-token")
+    public Mono<ApiResponse<LoginResponse>> refreshToken() {
+        return userService.refreshToken().map(ApiResponse::ok);
+    }
+
+    private static String clientIp(ServerHttpRequest request) {
+        InetSocketAddress address = request.getRemoteAddress();
+        return address == null ? "unknown" : address.getHostString();
+    }
+}
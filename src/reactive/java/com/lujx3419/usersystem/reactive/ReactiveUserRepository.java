@@ -0,0 +1,192 @@
+package com.lujx3419.usersystem.reactive;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.r2dbc.core.Parameter;
+import org.springframework.stereotype.Repository;
+
+import com.lujx3419.usersystem.dto.response.UserResponse;
+import com.lujx3419.usersystem.model.User;
+
+import io.r2dbc.spi.Readable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * R2DBC access to the {@code users} table, with the same statements as
+ * {@link com.lujx3419.usersystem.repository.UserRepository}: projections straight into
+ * {@link UserResponse} and single conditional updates that report 0 rows when their guard fails.
+ */
+@Repository
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveUserRepository {
+
+    private static final String RESPONSE_COLUMNS = "select id, name, age, version from users";
+
+    @Autowired
+    private DatabaseClient databaseClient;
+
+    // Full row for authentication and login, including the password hash
+    public Mono<User> findByName(String name) {
+        return databaseClient.sql("select * from users where name = :name")
+                .bind("name", name)
+                .map(ReactiveUserRepository::toUser)
+                .one();
+    }
+
+    public Mono<User> findById(Long id) {
+        return databaseClient.sql("select * from users where id = :id")
+                .bind("id", id)
+                .map(ReactiveUserRepository::toUser)
+                .one();
+    }
+
+    // The user behind a token, or nothing if that token was logged out; one round trip for both checks
+    public Mono<User> findByIdUnlessRevoked(Long id, String tokenId) {
+        return databaseClient.sql("select * from users where id = :id"
+                        + " and not exists (select 1 from revoked_tokens where jti = :jti)")
+                .bind("id", id)
+                .bind("jti", tokenId)
+                .map(ReactiveUserRepository::toUser)
+                .one();
+    }
+
+    public Mono<UserResponse> findResponseById(Long id) {
+        return databaseClient.sql(RESPONSE_COLUMNS + " where id = :id")
+                .bind("id", id)
+                .map(ReactiveUserRepository::toResponse)
+                .one();
+    }
+
+    public Flux<UserResponse> findAllResponses() {
+        return databaseClient.sql(RESPONSE_COLUMNS + " order by id")
+                .map(ReactiveUserRepository::toResponse)
+                .all();
+    }
+
+    public Flux<UserResponse> findResponsePage(long offset, int limit) {
+        return databaseClient.sql(RESPONSE_COLUMNS + " order by id limit :limit offset :offset")
+                .bind("limit", limit)
+                .bind("offset", offset)
+                .map(ReactiveUserRepository::toResponse)
+                .all();
+    }
+
+    // Keyset pagination: rows after the given id, in id order
+    public Flux<UserResponse> findResponsePageAfterId(long afterId, int limit) {
+        return databaseClient.sql(RESPONSE_COLUMNS + " where id > :afterId order by id limit :limit")
+                .bind("afterId", afterId)
+                .bind("limit", limit)
+                .map(ReactiveUserRepository::toResponse)
+                .all();
+    }
+
+    // Keyset pagination in name order, the id breaks ties between equal names
+    public Flux<UserResponse> findResponsePageAfterName(String afterName, long afterId, int limit) {
+        return databaseClient.sql(RESPONSE_COLUMNS
+                        + " where name > :afterName or (name = :afterName and id > :afterId) order by name, id limit :limit")
+                .bind("afterName", afterName)
+                .bind("afterId", afterId)
+                .bind("limit", limit)
+                .map(ReactiveUserRepository::toResponse)
+                .all();
+    }
+
+    // Insert a new user and return it with its generated id; a taken name fails on the unique index
+    public Mono<User> insert(String name, String password, String role) {
+        return databaseClient.sql("insert into users (name, password, role, token_version, active, version)"
+                        + " values (:name, :password, :role, 0, true, 0)")
+                .bind("name", name)
+                .bind("password", password)
+                .bind("role", role)
+                .filter(statement -> statement.returnGeneratedValues("id"))
+                .map(row -> row.get("id", Long.class))
+                .one()
+                .map(id -> {
+                    User user = new User();
+                    user.setId(id);
+                    user.setName(name);
+                    user.setPassword(password);
+                    user.setRole(role);
+                    return user;
+                });
+    }
+
+    // Partial update, null fields keep their value; renaming revokes the user's tokens
+    public Mono<Long> patch(Long id, long version, String name, Integer age, String owner) {
+        return databaseClient.sql("update users set"
+                        + " token_version = case when :name is not null and :name <> name then token_version + 1 else token_version end,"
+                        + " version = version + 1, name = coalesce(:name, name), age = coalesce(:age, age)"
+                        + " where id = :id and version = :version and (:owner is null or name = :owner)")
+                .bind("id", id)
+                .bind("version", version)
+                .bind("name", Parameter.fromOrEmpty(name, String.class))
+                .bind("age", Parameter.fromOrEmpty(age, Integer.class))
+                .bind("owner", Parameter.fromOrEmpty(owner, String.class))
+                .fetch()
+                .rowsUpdated();
+    }
+
+    // Full update, the version check is skipped when no version is given; a new name or password revokes tokens
+    public Mono<Long> update(Long id, Long version, String name, Integer age, String password, String owner) {
+        return databaseClient.sql("update users set"
+                        + " token_version = case when :password is not null or :name <> name then token_version + 1 else token_version end,"
+                        + " version = version + 1, name = :name, age = :age, password = coalesce(:password, password)"
+                        + " where id = :id and (:version is null or version = :version) and (:owner is null or name = :owner)")
+                .bind("id", id)
+                .bind("version", Parameter.fromOrEmpty(version, Long.class))
+                .bind("name", Parameter.fromOrEmpty(name, String.class))
+                .bind("age", Parameter.fromOrEmpty(age, Integer.class))
+                .bind("password", Parameter.fromOrEmpty(password, String.class))
+                .bind("owner", Parameter.fromOrEmpty(owner, String.class))
+                .fetch()
+                .rowsUpdated();
+    }
+
+    // Password change, applied only if the hash is still the one the old password was checked against
+    public Mono<Long> changePassword(Long id, String oldPassword, String newPassword) {
+        return databaseClient.sql("update users set token_version = token_version + 1, version = version + 1,"
+                        + " password = :newPassword where id = :id and password = :oldPassword")
+                .bind("id", id)
+                .bind("oldPassword", oldPassword)
+                .bind("newPassword", newPassword)
+                .fetch()
+                .rowsUpdated();
+    }
+
+    // Replace a password hash only if it has not been changed in the meantime
+    public Mono<Long> updatePasswordHash(Long id, String oldPassword, String newPassword) {
+        return databaseClient.sql("update users set password = :newPassword where id = :id and password = :oldPassword")
+                .bind("id", id)
+                .bind("oldPassword", oldPassword)
+                .bind("newPassword", newPassword)
+                .fetch()
+                .rowsUpdated();
+    }
+
+    public Mono<Long> deleteById(Long id) {
+        return databaseClient.sql("delete from users where id = :id")
+                .bind("id", id)
+                .fetch()
+                .rowsUpdated();
+    }
+
+    private static UserResponse toResponse(Readable row) {
+        return new UserResponse(row.get("id", Long.class), row.get("name", String.class),
+                row.get("age", Integer.class), row.get("version", Long.class));
+    }
+
+    private static User toUser(Readable row) {
+        User user = new User();
+        user.setId(row.get("id", Long.class));
+        user.setName(row.get("name", String.class));
+        user.setAge(row.get("age", Integer.class));
+        user.setPassword(row.get("password", String.class));
+        user.setRole(row.get("role", String.class));
+        user.setTokenVersion(row.get("token_version", Integer.class));
+        user.setActive(Boolean.TRUE.equals(row.get("active", Boolean.class)));
+        user.setVersion(row.get("version", Long.class));
+        return user;
+    }
+}
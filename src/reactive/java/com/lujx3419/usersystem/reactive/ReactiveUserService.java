@@ -0,0 +1,271 @@
+package com.lujx3419.usersystem.reactive;
+
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.ReactiveSecurityContextHolder;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.stereotype.Service;
+
+import com.lujx3419.usersystem.common.BusinessException;
+import com.lujx3419.usersystem.common.JwtUtil;
+import com.lujx3419.usersystem.common.InvalidPasswordException;
+import com.lujx3419.usersystem.common.VersionConflictException;
+import com.lujx3419.usersystem.dto.request.AdminRegisterRequest;
+import com.lujx3419.usersystem.dto.request.ChangePasswordRequest;
+import com.lujx3419.usersystem.dto.request.UserLoginRequest;
+import com.lujx3419.usersystem.dto.request.UserPatchRequest;
+import com.lujx3419.usersystem.dto.request.UserRegisterRequest;
+import com.lujx3419.usersystem.dto.request.UserRequest;
+import com.lujx3419.usersystem.dto.response.CursorPageResponse;
+import com.lujx3419.usersystem.dto.response.LoginResponse;
+import com.lujx3419.usersystem.dto.response.UserResponse;
+import com.lujx3419.usersystem.mapper.UserMapper;
+import com.lujx3419.usersystem.model.User;
+import com.lujx3419.usersystem.service.UserCursor;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Reactive counterpart of {@link com.lujx3419.usersystem.service.UserServiceImpl}, with the same
+ * permission rules and error messages. The caller's user row is the one
+ * {@link ReactiveJwtAuthenticationFilter} loaded for the request, so it is not read again.
+ */
+@Service
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveUserService {
+
+    private static final int MAX_PAGE_SIZE = 1000;
+
+    private final UserMapper userMapper = UserMapper.INSTANCE;
+
+    @Autowired
+    private ReactiveUserRepository userRepository;
+
+    @Autowired
+    private ReactivePasswordHasher passwordHasher;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    public Mono<UserResponse> registerUser(UserRegisterRequest request) {
+        // A taken name is rejected by the unique index on insert, see GlobalExceptionHandler
+        return passwordHasher.encode(request.getPassword())
+                .flatMap(encoded -> userRepository.insert(request.getName(), encoded, "USER"))
+                .map(userMapper::toResponse);
+    }
+
+    public Mono<UserResponse> registerAdmin(AdminRegisterRequest request) {
+        // Validate admin registration code
+        if (!"ADMIN123".equals(request.getAdminCode())) {
+            return Mono.error(new BusinessException("Admin registration code is incorrect!"));
+        }
+        return passwordHasher.encode(request.getPassword())
+                .flatMap(encoded -> userRepository.insert(request.getName(), encoded, "ADMIN"))
+                .map(userMapper::toResponse);
+    }
+
+    public Mono<LoginResponse> login(UserLoginRequest request) {
+        return userRepository.findByName(request.getName())
+                .switchIfEmpty(Mono.error(() -> new BusinessException("Username does not exist!")))
+                .flatMap(user -> {
+                    if (!user.isActive()) {
+                        return Mono.error(new BusinessException("User has been deactivated!"));
+                    }
+                    return passwordHasher.submit(encoder -> {
+                        if (!encoder.matches(request.getPassword(), user.getPassword())) {
+                            throw new InvalidPasswordException();
+                        }
+                        // While the raw password is known, re-encode hashes whose cost differs from the configured one
+                        return Optional.ofNullable(encoder.upgradeEncoding(user.getPassword())
+                                ? encoder.encode(request.getPassword()) : null);
+                    }).flatMap(rehashed -> rehashed
+                            .map(hash -> userRepository.updatePasswordHash(user.getId(), user.getPassword(), hash))
+                            .orElse(Mono.just(0L))
+                            .thenReturn(new LoginResponse(jwtUtil.generateToken(user), userMapper.toResponse(user))));
+                });
+    }
+
+    public Mono<UserResponse> getCurrentUser() {
+        return currentUser().map(userMapper::toResponse);
+    }
+
+    public Mono<UserResponse> getUserById(Long id) {
+        return userRepository.findResponseById(id)
+                .switchIfEmpty(Mono.error(() -> new BusinessException("User does not exist!")))
+                .flatMap(user -> canAccessUser(user.getName()).flatMap(allowed -> allowed
+                        ? Mono.just(user)
+                        // Permission check: only the user themselves or admin can view
+                        : Mono.error(new BusinessException("No permission to view this user!"))));
+    }
+
+    public Mono<List<UserResponse>> getAllUsers() {
+        // Permission check: only admin can view all users
+        return requireAdmin("Only admin can view all users!")
+                .then(userRepository.findAllResponses().collectList());
+    }
+
+    public Mono<List<UserResponse>> getUsersByPage(int page, int size) {
+        // Permission check: only admin can view paginated user list
+        return requireAdmin("Only admin can view user list!")
+                .then(Mono.fromCallable(() -> PageRequest.of(page, size)))
+                .flatMap(pageable -> userRepository.findResponsePage(pageable.getOffset(), size).collectList());
+    }
+
+    public Mono<CursorPageResponse> getUsersAfter(String after, int size, String sort) {
+        // Permission check: only admin can view paginated user list
+        return requireAdmin("Only admin can view user list!").then(Mono.defer(() -> {
+            if (size < 1 || size > MAX_PAGE_SIZE) {
+                return Mono.error(new BusinessException("Page size must be between 1 and " + MAX_PAGE_SIZE + "!"));
+            }
+            UserCursor.Sort order = UserCursor.Sort.of(sort);
+            UserCursor cursor = after == null || after.isEmpty() ? UserCursor.start(order) : UserCursor.decode(after, order);
+
+            // Fetch one extra row to know whether another page follows
+            return (order == UserCursor.Sort.NAME
+                    ? userRepository.findResponsePageAfterName(cursor.getName(), cursor.getId(), size + 1)
+                    : userRepository.findResponsePageAfterId(cursor.getId(), size + 1))
+                    .collectList()
+                    .map(users -> {
+                        if (users.size() <= size) {
+                            return new CursorPageResponse(users, null);
+                        }
+                        List<UserResponse> page = users.subList(0, size);
+                        UserResponse last = page.get(size - 1);
+                        return new CursorPageResponse(page, new UserCursor(order, last.getId(), last.getName()).encode());
+                    });
+        }));
+    }
+
+    public Mono<UserResponse> updateUser(Long id, UserRequest request) {
+        // Permission check: only the user themselves or admin can update, checked again in the update itself
+        return ownerGuard(id).flatMap(owner -> {
+            // If the frontend allows updating the password, also encrypt the password
+            boolean passwordChanged = request.getPassword() != null && !request.getPassword().isEmpty();
+            Mono<Optional<String>> encodedPassword = passwordChanged
+                    ? passwordHasher.encode(request.getPassword()).map(Optional::of)
+                    : Mono.just(Optional.empty());
+
+            return encodedPassword
+                    .flatMap(encoded -> userRepository.update(id, request.getVersion(), request.getName(),
+                            request.getAge(), encoded.orElse(null), owner.orElse(null)))
+                    .flatMap(updated -> {
+                        if (updated == 0) {
+                            return updateRejected(id, owner);
+                        }
+                        if (request.getVersion() != null) {
+                            return Mono.just(new UserResponse(id, request.getName(), request.getAge(), request.getVersion() + 1));
+                        }
+                        return findExisting(id);
+                    });
+        });
+    }
+
+    public Mono<UserResponse> patchUser(Long id, UserPatchRequest request) {
+        return ownerGuard(id)
+                .flatMap(owner -> userRepository.patch(id, request.getVersion(), request.getName(), request.getAge(),
+                                owner.orElse(null))
+                        .flatMap(updated -> {
+                            if (updated == 0) {
+                                return updateRejected(id, owner);
+                            }
+                            if (request.getName() != null && request.getAge() != null) {
+                                return Mono.just(new UserResponse(id, request.getName(), request.getAge(), request.getVersion() + 1));
+                            }
+                            return findExisting(id);
+                        }));
+    }
+
+    public Mono<Void> changePassword(Long userId, ChangePasswordRequest request) {
+        return userRepository.findById(userId)
+                .switchIfEmpty(Mono.error(() -> new BusinessException("User does not exist!")))
+                // Verify the old password and hash the new one in a single task on the hashing scheduler
+                .flatMap(user -> passwordHasher.submit(encoder -> {
+                    if (!encoder.matches(request.getOldPassword(), user.getPassword())) {
+                        throw new BusinessException("Old password is incorrect!");
+                    }
+                    return encoder.encode(request.getNewPassword());
+                }).flatMap(encoded -> userRepository.changePassword(user.getId(), user.getPassword(), encoded)))
+                // Compare-and-set on the hash: a concurrent change since the check wins
+                .flatMap(updated -> updated == 0
+                        ? Mono.error(new VersionConflictException("Password has been changed by someone else, please retry!"))
+                        : Mono.empty());
+    }
+
+    public Mono<Void> deleteUser(Long id) {
+        return userRepository.findResponseById(id)
+                .switchIfEmpty(Mono.error(() -> new BusinessException("User does not exist!")))
+                .flatMap(user -> canAccessUser(user.getName()))
+                .flatMap(allowed -> allowed
+                        ? userRepository.deleteById(id).then()
+                        // Permission check: only the user themselves or admin can delete
+                        : Mono.error(new BusinessException("No permission to delete this user!")));
+    }
+
+    public Mono<LoginResponse> refreshToken() {
+        return currentUser().map(user -> new LoginResponse(jwtUtil.generateToken(user), userMapper.toResponse(user)));
+    }
+
+    // The authenticated user's row, as loaded by the JWT filter
+    private Mono<User> currentUser() {
+        return authentication()
+                .mapNotNull(authentication -> authentication.getDetails() instanceof User user ? user : null)
+                .switchIfEmpty(Mono.error(() -> new BusinessException("User not logged in!")));
+    }
+
+    private Mono<Authentication> authentication() {
+        return ReactiveSecurityContextHolder.getContext().mapNotNull(SecurityContext::getAuthentication);
+    }
+
+    private Mono<Boolean> isAdmin() {
+        return authentication()
+                .map(authentication -> authentication.getAuthorities().stream()
+                        .anyMatch(authority -> "ADMIN".equals(authority.getAuthority())))
+                .defaultIfEmpty(false);
+    }
+
+    private Mono<Void> requireAdmin(String message) {
+        return isAdmin().flatMap(admin -> admin ? Mono.empty() : Mono.error(new BusinessException(message)));
+    }
+
+    // Check if the current user has permission to access the specified user's data
+    private Mono<Boolean> canAccessUser(String targetUsername) {
+        return authentication()
+                .flatMap(authentication -> targetUsername.equals(authentication.getName())
+                        ? Mono.just(true) : isAdmin())
+                .defaultIfEmpty(false);
+    }
+
+    /**
+     * Name the update of the given user must be restricted to: empty for admins, the caller's
+     * own name otherwise. Fails early when a non-admin targets another user.
+     */
+    private Mono<Optional<String>> ownerGuard(Long id) {
+        return isAdmin().flatMap(admin -> admin
+                ? Mono.just(Optional.<String>empty())
+                : currentUser()
+                        .onErrorResume(BusinessException.class, e -> Mono.empty())
+                        .filter(self -> self.getId().equals(id))
+                        .map(self -> Optional.of(self.getName()))
+                        .switchIfEmpty(Mono.error(() -> new BusinessException("No permission to update this user!"))));
+    }
+
+    // Find out why a conditional update matched no row
+    private <T> Mono<T> updateRejected(Long id, Optional<String> owner) {
+        return userRepository.findResponseById(id)
+                .map(current -> owner.isPresent() && !owner.get().equals(current.getName())
+                        ? new BusinessException("No permission to update this user!")
+                        : new VersionConflictException("User has been modified by someone else, please reload and retry!"))
+                .defaultIfEmpty(new BusinessException("User does not exist!"))
+                .flatMap(error -> Mono.<T>error(error));
+    }
+
+    private Mono<UserResponse> findExisting(Long id) {
+        return userRepository.findResponseById(id)
+                .switchIfEmpty(Mono.error(() -> new BusinessException("User does not exist!")));
+    }
+}
@@ -0,0 +1,49 @@
+package com.lujx3419.usersystem.reactive;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernateJpaAutoConfiguration;
+import org.springframework.boot.autoconfigure.security.reactive.ReactiveUserDetailsServiceAutoConfiguration;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.Import;
+
+import com.lujx3419.usersystem.common.GlobalExceptionHandler;
+import com.lujx3419.usersystem.common.JwtUtil;
+import com.lujx3419.usersystem.config.SecurityConfig;
+import com.lujx3419.usersystem.service.LoginRateLimiter;
+
+/**
+ * Non-blocking variant of the user API on WebFlux, Netty and R2DBC, with the same request and
+ * response contracts as the servlet application. Only this package is scanned; the JPA stack is
+ * left out. The condition keeps these beans out of the servlet application, which scans the whole tree.
+ */
+@SpringBootConfiguration
+@EnableAutoConfiguration(exclude = {
+        DataSourceAutoConfiguration.class,
+        HibernateJpaAutoConfiguration.class,
+        ReactiveUserDetailsServiceAutoConfiguration.class
+})
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@ComponentScan
+@Import({JwtUtil.class, SecurityConfig.class, GlobalExceptionHandler.class, LoginRateLimiter.class})
+public class ReactiveUsersystemApplication {
+
+    public static void main(String[] args) {
+        SpringApplication application = new SpringApplication(ReactiveUsersystemApplication.class);
+        application.setWebApplicationType(WebApplicationType.REACTIVE);
+        application.setAdditionalProfiles("reactive");
+        application.run(args);
+    }
+
+    // Tomcat is on the classpath as well; Netty keeps a large number of idle keep-alive connections cheap
+    @Bean
+    public NettyReactiveWebServerFactory nettyReactiveWebServerFactory() {
+        return new NettyReactiveWebServerFactory();
+    }
+}
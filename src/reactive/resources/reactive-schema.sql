@@ -0,0 +1,20 @@
+-- users table as created by the servlet application's Hibernate mapping, for the in-memory database
+create table if not exists users (
+    id bigint auto_increment primary key,
+    name varchar(255),
+    age integer,
+    password varchar(255),
+    role varchar(255),
+    token_version integer not null default 0,
+    active boolean not null default true,
+    version bigint not null default 0,
+    constraint uk_users_name unique (name)
+);
+
+-- Logged out tokens, as recorded by the servlet application
+create table if not exists revoked_tokens (
+    jti varchar(36) primary key,
+    user_id bigint,
+    expires_at bigint not null,
+    revoked_at bigint
+);
@@ -0,0 +1,53 @@
+package com.lujx3419.usersystem.common;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.lujx3419.usersystem.dto.response.CursorPageResponse;
+import com.lujx3419.usersystem.dto.response.LoginResponse;
+import com.lujx3419.usersystem.dto.response.UserResponse;
+
+/**
+ * The hand-written serializers must produce exactly what the bean serializers would.
+ */
+class ApiResponseJsonComponentTests {
+
+    private final ObjectMapper beans = Jackson2ObjectMapperBuilder.json().build();
+    private final ObjectMapper fast = Jackson2ObjectMapperBuilder.json()
+            .modulesToInstall(new SimpleModule()
+                    .addSerializer(new ApiResponseJsonComponent.ApiResponseSerializer())
+                    .addSerializer(new ApiResponseJsonComponent.UserResponseSerializer())
+                    .addSerializer(new ApiResponseJsonComponent.LoginResponseSerializer()))
+            .build();
+
+    @Test
+    void sameJsonAsBeanSerializers() throws Exception {
+        assertInstanceOf(ApiResponseJsonComponent.UserResponseSerializer.class,
+                fast.getSerializerProviderInstance().findValueSerializer(UserResponse.class));
+
+        UserResponse user = new UserResponse(1L, "alice \"a\" é", 30, 2L);
+        UserResponse sparse = new UserResponse(2L, "bob", null, null);
+        List<Object> values = List.of(
+                ApiResponse.ok(user),
+                ApiResponse.ok(List.of(user, sparse)),
+                ApiResponse.ok(List.of()),
+                ApiResponse.ok(new LoginResponse("header.payload.signature", user)),
+                ApiResponse.ok(new CursorPageResponse(List.of(sparse), "next")),
+                ApiResponse.ok("User ID 1 deleted!"),
+                ApiResponse.ok(Map.of("key", 1)),
+                ApiResponse.error("Username does not exist!"),
+                ApiResponse.error(429, null),
+                user);
+        for (Object value : values) {
+            assertEquals(beans.writeValueAsString(value), fast.writeValueAsString(value));
+        }
+    }
+}
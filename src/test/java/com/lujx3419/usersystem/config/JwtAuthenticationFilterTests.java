@@ -0,0 +1,188 @@
+package com.lujx3419.usersystem.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.lujx3419.usersystem.common.JwtUtil;
+import com.lujx3419.usersystem.common.TokenClaims;
+import com.lujx3419.usersystem.repository.RevokedTokenRepository;
+import com.lujx3419.usersystem.service.TokenDenylist;
+import com.lujx3419.usersystem.support.EndpointBudget;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Which tokens the JWT filter still accepts after the user or the token was revoked.
+ */
+// Polls run only when a test calls them
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = "usersystem.revocation.poll-interval=1h")
+@ActiveProfiles("test")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class JwtAuthenticationFilterTests {
+
+    // The signing key of JwtUtil, to issue tokens the way releases before token versions did
+    private static final String SECRET_KEY = "your-secret-key-must-be-at-least-256-bits-long-for-hs256";
+
+    private static final String PASSWORD = "filter-password";
+
+    @Autowired
+    private TestRestTemplate rest;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    @Autowired
+    private TokenDenylist tokenDenylist;
+
+    @Autowired
+    private RevokedTokenRepository revokedTokenRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private EndpointBudget endpoints;
+    private String adminToken;
+    private final AtomicInteger sequence = new AtomicInteger();
+
+    @BeforeAll
+    void setUp() {
+        endpoints = new EndpointBudget(rest, meterRegistry);
+        endpoints.call(HttpMethod.POST, "/users/register/admin", null,
+                Map.of("name", "filter_admin", "password", PASSWORD, "adminCode", "ADMIN123"));
+        adminToken = login("filter_admin").path("token").asText();
+    }
+
+    @Test
+    void legacyTokenOfADeactivatedUserIsRejected() throws InterruptedException {
+        JsonNode session = login(registered());
+        String legacyToken = legacyToken(session.path("user").path("name").asText());
+        assertEquals(HttpStatus.OK, me(legacyToken));
+
+        String jobId = endpoints.call(HttpMethod.POST, "/users/bulk", adminToken,
+                Map.of("action", "DEACTIVATE", "ids", List.of(session.path("user").path("id").asLong()))).path("jobId").asText();
+        while (!"COMPLETED".equals(endpoints.call(HttpMethod.GET, "/users/bulk/{jobId}", adminToken, null, jobId).path("status").asText())) {
+            Thread.sleep(20);
+        }
+
+        assertEquals(HttpStatus.FORBIDDEN, me(legacyToken));
+    }
+
+    @Test
+    void logoutRevokesOnlyThatSession() {
+        String name = registered();
+        String loggedOut = login(name).path("token").asText();
+        String other = login(name).path("token").asText();
+
+        endpoints.call(HttpMethod.POST, "/users/logout", loggedOut, null);
+
+        assertEquals(HttpStatus.FORBIDDEN, me(loggedOut));
+        assertEquals(HttpStatus.OK, me(other));
+    }
+
+    @Test
+    void revokingSessionsRejectsEarlierTokensOnly() {
+        JsonNode session = login(registered());
+        String earlier = session.path("token").asText();
+
+        endpoints.call(HttpMethod.DELETE, "/users/{id}/sessions", adminToken, null, session.path("user").path("id").asLong());
+
+        assertEquals(HttpStatus.FORBIDDEN, me(earlier));
+        assertEquals(HttpStatus.OK, me(login(session.path("user").path("name").asText()).path("token").asText()));
+    }
+
+    @Test
+    void logoutsSurviveARestart() {
+        String token = login(registered()).path("token").asText();
+        endpoints.call(HttpMethod.POST, "/users/logout", token, null);
+        TokenClaims claims = jwtUtil.parseToken(token);
+
+        // A second denylist starts empty and reads the table, as a restarted instance does
+        TokenDenylist restarted = new TokenDenylist(4, 0.01);
+        ReflectionTestUtils.setField(restarted, "revokedTokenRepository", revokedTokenRepository);
+        ReflectionTestUtils.setField(restarted, "transactionTemplate", transactionTemplate);
+        restarted.load();
+
+        assertTrue(restarted.isRevoked(claims.getTokenId(), claims.getExpiresAt()));
+        assertFalse(restarted.isRevoked(jwtUtil.parseToken(login(registered()).path("token").asText()).getTokenId(),
+                claims.getExpiresAt()));
+    }
+
+    @Test
+    void tokenLoggedOutOnAnotherInstanceIsRejectedAfterThePoll() {
+        String token = login(registered()).path("token").asText();
+        TokenClaims claims = jwtUtil.parseToken(token);
+        // The row another instance writes on logout, unknown to this instance's denylist
+        revokedTokenRepository.insert(claims.getTokenId(), claims.getUserId(), claims.getExpiresAt(), System.currentTimeMillis());
+        assertEquals(HttpStatus.OK, me(token));
+
+        tokenDenylist.poll();
+
+        assertEquals(HttpStatus.FORBIDDEN, me(token));
+    }
+
+    @Test
+    void logoutOfATokenAlreadyRevokedOnAnotherInstanceSucceeds() {
+        String token = login(registered()).path("token").asText();
+        TokenClaims claims = jwtUtil.parseToken(token);
+        revokedTokenRepository.insert(claims.getTokenId(), claims.getUserId(), claims.getExpiresAt(), System.currentTimeMillis());
+
+        endpoints.call(HttpMethod.POST, "/users/logout", token, null);
+
+        assertEquals(HttpStatus.FORBIDDEN, me(token));
+    }
+
+    private HttpStatus me(String token) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setBearerAuth(token);
+        return HttpStatus.valueOf(rest.exchange("/users/me", HttpMethod.GET, new HttpEntity<>(headers), String.class)
+                .getStatusCode().value());
+    }
+
+    // Subject and expiration only, without user id, token version or token id
+    private static String legacyToken(String name) {
+        return Jwts.builder()
+                .setSubject(name)
+                .setIssuedAt(new Date())
+                .setExpiration(new Date(System.currentTimeMillis() + 60_000))
+                .signWith(Keys.hmacShaKeyFor(SECRET_KEY.getBytes(StandardCharsets.UTF_8)), SignatureAlgorithm.HS256)
+                .compact();
+    }
+
+    private String registered() {
+        String name = "filter_user_" + sequence.incrementAndGet();
+        endpoints.call(HttpMethod.POST, "/users/register", null, Map.of("name", name, "password", PASSWORD));
+        return name;
+    }
+
+    private JsonNode login(String name) {
+        return endpoints.call(HttpMethod.POST, "/users/login", null, Map.of("name", name, "password", PASSWORD));
+    }
+}
@@ -0,0 +1,110 @@
+package com.lujx3419.usersystem.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.lujx3419.usersystem.common.DataSourceRouting;
+
+/**
+ * Two embedded databases stand in for the primary and the replica; each one holds
+ * a marker row naming itself, so a query reveals where it was routed.
+ */
+class ReadWriteRoutingDataSourceTests {
+
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate readWrite;
+    private TransactionTemplate readOnly;
+
+    @BeforeEach
+    void setUp() {
+        DataSource primary = embedded("primary");
+        DataSource replica = embedded("replica");
+
+        DataSource routing = new LazyConnectionDataSourceProxy(new ReadWriteRoutingDataSource(primary, List.of(replica)));
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(routing);
+        jdbcTemplate = new JdbcTemplate(routing);
+        readWrite = new TransactionTemplate(transactionManager);
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+    }
+
+    @AfterEach
+    void tearDown() {
+        DataSourceRouting.reset();
+    }
+
+    @Test
+    void readOnlyTransactionsUseReplica() {
+        assertEquals("replica", readOnly.execute(status -> whereAmI()));
+    }
+
+    @Test
+    void writesUsePrimary() {
+        assertEquals("primary", readWrite.execute(status -> whereAmI()));
+    }
+
+    @Test
+    void readsAfterWriteStayOnPrimaryUntilReset() {
+        readWrite.executeWithoutResult(status -> jdbcTemplate.update("update node set name = name"));
+        assertEquals("primary", readOnly.execute(status -> whereAmI()));
+
+        DataSourceRouting.reset();
+        assertEquals("replica", readOnly.execute(status -> whereAmI()));
+    }
+
+    @Test
+    void onPrimaryOverridesReadOnlyRouting() {
+        assertEquals("primary", DataSourceRouting.onPrimary(() -> readOnly.execute(status -> whereAmI())));
+        assertEquals("replica", readOnly.execute(status -> whereAmI()));
+    }
+
+    @Test
+    void propagatingExecutorCarriesThePinAndClearsItOnTheWorker() {
+        ExecutorService worker = Executors.newSingleThreadExecutor();
+        try {
+            Executor tasks = DataSourceRouting.propagating(worker);
+            // A write on the worker pins only the task that made it
+            assertEquals("primary", CompletableFuture.supplyAsync(() -> {
+                readWrite.executeWithoutResult(status -> jdbcTemplate.update("update node set name = name"));
+                return readOnly.execute(status -> whereAmI());
+            }, tasks).join());
+            assertEquals("replica", CompletableFuture.supplyAsync(() -> readOnly.execute(status -> whereAmI()), tasks).join());
+
+            // The submitter's pin follows the task
+            DataSourceRouting.pinToPrimary();
+            assertEquals("primary", CompletableFuture.supplyAsync(() -> readOnly.execute(status -> whereAmI()), tasks).join());
+        } finally {
+            worker.shutdown();
+        }
+    }
+
+    private String whereAmI() {
+        return jdbcTemplate.queryForObject("select name from node", String.class);
+    }
+
+    private static DataSource embedded(String name) {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:routing-" + name + ";DB_CLOSE_DELAY=-1", "sa", "");
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+        jdbc.execute("create table if not exists node (name varchar(20))");
+        jdbc.update("delete from node");
+        jdbc.update("insert into node (name) values (?)", name);
+        return dataSource;
+    }
+}
@@ -0,0 +1,218 @@
+package com.lujx3419.usersystem.controller;
+
+import static com.lujx3419.usersystem.support.EndpointBudget.budget;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpMethod;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.lujx3419.usersystem.service.UserSearchIndex;
+import com.lujx3419.usersystem.support.EndpointBudget;
+import com.lujx3419.usersystem.support.EndpointBudget.Budget;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * SQL statement and latency budgets of the user endpoints. Each call is made once to warm up
+ * and then measured; a budget is an upper bound, so raise it deliberately when a change needs more.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class UserControllerBudgetTests {
+
+    private static final Duration READ = Duration.ofMillis(250);
+    private static final Duration WRITE = Duration.ofMillis(500);
+
+    private static final String PASSWORD = "budget-password";
+
+    @Autowired
+    private TestRestTemplate rest;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private UserSearchIndex userSearchIndex;
+
+    private EndpointBudget endpoints;
+    private String adminToken;
+    private final AtomicInteger sequence = new AtomicInteger();
+
+    @BeforeAll
+    void setUp() {
+        endpoints = new EndpointBudget(rest, meterRegistry);
+        endpoints.call(HttpMethod.POST, "/users/register/admin", null,
+                Map.of("name", "budget_admin", "password", PASSWORD, "adminCode", "ADMIN123"));
+        adminToken = login("budget_admin").path("token").asText();
+        for (int i = 0; i < 30; i++) {
+            registered();
+        }
+    }
+
+    @Test
+    void register() {
+        Budget budget = budget(1, WRITE);
+        endpoints.check(budget, HttpMethod.POST, "/users/register", null, newUser());
+        endpoints.check(budget, HttpMethod.POST, "/users/register", null, newUser());
+    }
+
+    @Test
+    void login() {
+        String name = registered();
+        login(name);
+        endpoints.check(budget(1, WRITE), HttpMethod.POST, "/users/login", null, Map.of("name", name, "password", PASSWORD));
+    }
+
+    @Test
+    void me() {
+        String token = login(registered()).path("token").asText();
+        endpoints.call(HttpMethod.GET, "/users/me", token, null);
+        endpoints.check(budget(1, READ), HttpMethod.GET, "/users/me", token, null);
+    }
+
+    @Test
+    void getById() {
+        JsonNode session = login(registered());
+        String token = session.path("token").asText();
+        long id = session.path("user").path("id").asLong();
+        endpoints.call(HttpMethod.GET, "/users/{id}", token, null, id);
+        endpoints.check(budget(1, READ), HttpMethod.GET, "/users/{id}", token, null, id);
+    }
+
+    @Test
+    void notModified() {
+        JsonNode session = login(registered());
+        String token = session.path("token").asText();
+        long id = session.path("user").path("id").asLong();
+
+        // Users revalidate their own record from the user cache, admins with a version lookup
+        String eTag = endpoints.eTag("/users/{id}", token, id);
+        endpoints.checkNotModified(budget(0, READ), "/users/{id}", token, eTag, id);
+        endpoints.checkNotModified(budget(1, READ), "/users/{id}", adminToken, eTag, id);
+        endpoints.checkNotModified(budget(0, READ), "/users/me", token, endpoints.eTag("/users/me", token));
+        endpoints.checkNotModified(budget(1, READ), "/users/page?size=10", adminToken,
+                endpoints.eTag("/users/page?size=10", adminToken));
+    }
+
+    @Test
+    void update() {
+        JsonNode session = login(registered());
+        String token = session.path("token").asText();
+        JsonNode user = session.path("user");
+        long id = user.path("id").asLong();
+        String name = user.path("name").asText();
+        endpoints.call(HttpMethod.PUT, "/users/{id}", token, Map.of("name", name, "age", 30), id);
+
+        // Writes also reload the caller's cached user and token version they invalidated, which
+        // is 2 statements on top of the update; without a version the result is read back too
+        endpoints.check(budget(4, WRITE), HttpMethod.PUT, "/users/{id}", token, Map.of("name", name, "age", 31), id);
+        endpoints.check(budget(3, WRITE), HttpMethod.PUT, "/users/{id}", token,
+                Map.of("name", name, "age", 32, "version", 2), id);
+    }
+
+    @Test
+    void patch() {
+        JsonNode session = login(registered());
+        String token = session.path("token").asText();
+        long id = session.path("user").path("id").asLong();
+        endpoints.call(HttpMethod.PATCH, "/users/{id}", token, Map.of("age", 40, "version", 0), id);
+        endpoints.check(budget(3, WRITE), HttpMethod.PATCH, "/users/{id}", token, Map.of("age", 41, "version", 1), id);
+    }
+
+    @Test
+    void changePassword() {
+        JsonNode session = login(registered());
+        long id = session.path("user").path("id").asLong();
+        endpoints.check(budget(3, WRITE), HttpMethod.PUT, "/users/{id}/password", session.path("token").asText(),
+                Map.of("oldPassword", PASSWORD, "newPassword", PASSWORD + "2"), id);
+    }
+
+    @Test
+    void delete() {
+        long first = login(registered()).path("user").path("id").asLong();
+        long second = login(registered()).path("user").path("id").asLong();
+        endpoints.call(HttpMethod.DELETE, "/users/{id}", adminToken, null, first);
+        endpoints.check(budget(2, WRITE), HttpMethod.DELETE, "/users/{id}", adminToken, null, second);
+    }
+
+    @Test
+    void listAll() {
+        endpoints.call(HttpMethod.GET, "/users", adminToken, null);
+        endpoints.check(budget(1, READ), HttpMethod.GET, "/users", adminToken, null);
+    }
+
+    @Test
+    void offsetPage() {
+        endpoints.call(HttpMethod.GET, "/users/page?page={page}&size=10", adminToken, null, 0);
+        endpoints.check(budget(1, READ), HttpMethod.GET, "/users/page?page={page}&size=10", adminToken, null, 1);
+    }
+
+    @Test
+    void cursorPage() {
+        JsonNode first = endpoints.call(HttpMethod.GET, "/users/page?size=10", adminToken, null);
+        endpoints.check(budget(1, READ), HttpMethod.GET, "/users/page?size=10&after={after}", adminToken, null,
+                first.path("nextCursor").asText());
+    }
+
+    @Test
+    void search() throws InterruptedException {
+        // The index loads in the background once the application has started
+        long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+        while (!userSearchIndex.isLoaded() && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        endpoints.call(HttpMethod.GET, "/users/search?prefix=budget_user", adminToken, null);
+        endpoints.check(budget(1, READ), HttpMethod.GET, "/users/search?prefix=budget_user&minAge=0&maxAge=150&size=10",
+                adminToken, null);
+    }
+
+    @Test
+    void refreshToken() {
+        String token = login(registered()).path("token").asText();
+        endpoints.call(HttpMethod.POST, "/users/refresh-token", token, null);
+        endpoints.check(budget(1, READ), HttpMethod.POST, "/users/refresh-token", token, null);
+    }
+
+    @Test
+    void logout() {
+        String first = login(registered()).path("token").asText();
+        String second = login(registered()).path("token").asText();
+        endpoints.call(HttpMethod.POST, "/users/logout", first, null);
+        // Warm the caller's token version, the logout itself is a single insert
+        endpoints.call(HttpMethod.GET, "/users/me", second, null);
+        endpoints.check(budget(1, WRITE), HttpMethod.POST, "/users/logout", second, null);
+    }
+
+    @Test
+    void revokeSessions() {
+        long first = login(registered()).path("user").path("id").asLong();
+        long second = login(registered()).path("user").path("id").asLong();
+        endpoints.call(HttpMethod.DELETE, "/users/{id}/sessions", adminToken, null, first);
+        endpoints.check(budget(2, WRITE), HttpMethod.DELETE, "/users/{id}/sessions", adminToken, null, second);
+    }
+
+    private String registered() {
+        Map<String, Object> user = newUser();
+        endpoints.call(HttpMethod.POST, "/users/register", null, user);
+        return (String) user.get("name");
+    }
+
+    private Map<String, Object> newUser() {
+        return Map.of("name", "budget_user_" + sequence.incrementAndGet(), "password", PASSWORD);
+    }
+
+    private JsonNode login(String name) {
+        return endpoints.call(HttpMethod.POST, "/users/login", null, Map.of("name", name, "password", PASSWORD));
+    }
+}
@@ -0,0 +1,78 @@
+package com.lujx3419.usersystem.service;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.lujx3419.usersystem.repository.RevokedTokenRepository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * The Bloom filter alone, and behind {@link TokenDenylist} once a day's filter has to grow.
+ */
+class BloomFilterTests {
+
+    @Test
+    void addedValuesAreAlwaysFound() {
+        BloomFilter filter = new BloomFilter(1000, 0.01);
+        List<String> added = uuids(1000);
+        added.forEach(filter::put);
+
+        added.forEach(value -> assertTrue(filter.mightContain(value), value));
+    }
+
+    @Test
+    void falsePositivesStayNearTheConfiguredRate() {
+        BloomFilter filter = new BloomFilter(1000, 0.01);
+        uuids(1000).forEach(filter::put);
+
+        long falsePositives = uuids(10_000).stream().filter(filter::mightContain).count();
+        assertTrue(falsePositives < 300, falsePositives + " false positives in 10000");
+    }
+
+    @Test
+    void fullDayFilterIsRebuiltWithEveryToken() {
+        // Room for 4 tokens a day, so 1000 revocations on one day rebuild the filter several times
+        TokenDenylist denylist = new TokenDenylist(4, 0.01);
+        ReflectionTestUtils.setField(denylist, "revokedTokenRepository", repository());
+        long expiresAt = System.currentTimeMillis() + TimeUnit.DAYS.toMillis(1);
+        List<String> revoked = uuids(1000);
+        revoked.forEach(tokenId -> denylist.revoke(tokenId, 1L, expiresAt));
+
+        revoked.forEach(tokenId -> assertTrue(denylist.isRevoked(tokenId, expiresAt), tokenId));
+        // A filter that had not grown past 4 entries would pass almost every other token on to the exact table
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        denylist.bindTo(registry);
+        uuids(1000).forEach(tokenId -> assertFalse(denylist.isRevoked(tokenId, expiresAt), tokenId));
+        double falsePositives = registry.get("usersystem.token.denylist.false.positives").functionCounter().count();
+        assertTrue(falsePositives < 100, falsePositives + " false positives in 1000");
+    }
+
+    private static List<String> uuids(int count) {
+        List<String> values = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            values.add(UUID.randomUUID().toString());
+        }
+        return values;
+    }
+
+    // Repository stub that accepts every write
+    private static RevokedTokenRepository repository() {
+        return (RevokedTokenRepository) Proxy.newProxyInstance(RevokedTokenRepository.class.getClassLoader(),
+                new Class<?>[] {RevokedTokenRepository.class}, (proxy, method, args) -> {
+                    if (method.getName().equals("insert") || method.getName().equals("deleteExpired")) {
+                        return 1;
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+    }
+}
@@ -0,0 +1,92 @@
+package com.lujx3419.usersystem.service;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+
+import com.lujx3419.usersystem.common.TooManyRequestsException;
+
+/**
+ * Buckets are driven by a manual clock: 60 per minute refills one token a second. The global
+ * username bucket refills twice as fast as the one per username and address.
+ */
+class LoginRateLimiterTests {
+
+    private final AtomicLong clock = new AtomicLong();
+    private final LoginRateLimiter limiter = new LoginRateLimiter(true, 60, 3, 60, 2, 120, 4, 1000, clock::get);
+
+    @Test
+    void failedLoginsFillTheUsernameBucketThenItRefills() {
+        limiter.checkLogin("alice", "10.0.0.1");
+        limiter.recordFailedLogin("alice", "10.0.0.1");
+        limiter.recordFailedLogin("Alice", "10.0.0.1");
+        TooManyRequestsException ex = assertThrows(TooManyRequestsException.class,
+                () -> limiter.checkLogin("ALICE", "10.0.0.1"));
+        assertEquals(1, ex.getRetryAfterSeconds());
+
+        // Other names are not affected
+        assertDoesNotThrow(() -> limiter.checkLogin("bob", "10.0.0.1"));
+
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(3));
+        assertDoesNotThrow(() -> limiter.checkLogin("alice", "10.0.0.1"));
+    }
+
+    @Test
+    void successfulLoginsNeverLockTheAccount() {
+        for (int i = 0; i < 10; i++) {
+            // A fresh address each time, so only the username buckets could reject
+            limiter.checkLogin("alice", "10.0.1." + i);
+        }
+    }
+
+    @Test
+    void guessesFromOneAddressDoNotLockOutTheOwner() {
+        // A minute of wrong passwords, as fast as the attacker's buckets let them through
+        int guesses = 0;
+        for (int second = 0; second < 60; second++) {
+            for (int i = 0; i < 5; i++) {
+                try {
+                    limiter.checkLogin("alice", "10.0.0.66");
+                    limiter.recordFailedLogin("alice", "10.0.0.66");
+                    guesses++;
+                } catch (TooManyRequestsException e) {
+                    // Turned away before the password was checked
+                }
+            }
+            clock.addAndGet(TimeUnit.SECONDS.toNanos(1));
+        }
+        // The burst, then one a second
+        assertEquals(61, guesses);
+        assertDoesNotThrow(() -> limiter.checkLogin("alice", "10.0.0.1"));
+    }
+
+    @Test
+    void guessesSpreadOverManyAddressesHitTheGlobalUsernameBucket() {
+        for (int i = 0; i < 4; i++) {
+            limiter.recordFailedLogin("alice", "10.0.2." + i);
+        }
+        assertThrows(TooManyRequestsException.class, () -> limiter.checkLogin("alice", "10.0.0.1"));
+    }
+
+    @Test
+    void ipBucketIsSharedByLoginAndRegistration() {
+        limiter.checkRegistration("10.0.0.1");
+        limiter.checkLogin("alice", "10.0.0.1");
+        limiter.checkLogin("bob", "10.0.0.1");
+        assertThrows(TooManyRequestsException.class, () -> limiter.checkRegistration("10.0.0.1"));
+        assertDoesNotThrow(() -> limiter.checkRegistration("10.0.0.2"));
+    }
+
+    @Test
+    void disabledLimiterAllowsEverything() {
+        LoginRateLimiter disabled = new LoginRateLimiter(false, 1, 1, 1, 1, 1, 1, 1000, clock::get);
+        for (int i = 0; i < 10; i++) {
+            disabled.checkLogin("alice", "10.0.0.1");
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.lujx3419.usersystem.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+/**
+ * A single hashing thread with a short queue and a BCrypt cost high enough that an import
+ * keeps the pool busy for a while.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "usersystem.hashing.threads=1",
+        "usersystem.hashing.queue-capacity=4",
+        "usersystem.bcrypt.strength=8"
+})
+@ActiveProfiles("test")
+class PasswordHasherTests {
+
+    private static final String PASSWORD = "hasher-password";
+
+    @Autowired
+    private TestRestTemplate rest;
+
+    @Autowired
+    private PasswordHasher passwordHasher;
+
+    @Test
+    void loginGetsThroughWhileAnImportRuns() {
+        rest.postForObject("/users/register/admin", Map.of("name", "hasher_admin", "password", PASSWORD, "adminCode", "ADMIN123"), JsonNode.class);
+        rest.postForObject("/users/register", Map.of("name", "hasher_user", "password", PASSWORD), JsonNode.class);
+        String adminToken = login("hasher_admin").getBody().path("data").path("token").asText();
+
+        StringBuilder csv = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            csv.append("hasher_import_").append(i).append(',').append(PASSWORD).append('\n');
+        }
+        HttpHeaders headers = new HttpHeaders();
+        headers.setBearerAuth(adminToken);
+        headers.setContentType(MediaType.parseMediaType("text/csv"));
+        CompletableFuture<JsonNode> imported = CompletableFuture.supplyAsync(() ->
+                rest.postForObject("/users/import", new HttpEntity<>(csv.toString(), headers), JsonNode.class));
+
+        while (passwordHasher.getActiveCount() == 0 && !imported.isDone()) {
+            Thread.onSpinWait();
+        }
+        int logins = 0;
+        while (!imported.isDone()) {
+            ResponseEntity<JsonNode> response = login("hasher_user");
+            assertEquals(HttpStatus.OK, response.getStatusCode());
+            assertEquals(200, response.getBody().path("code").asInt());
+            logins++;
+        }
+
+        assertTrue(logins > 0, "the import finished before any login was tried");
+        assertEquals(100, imported.join().path("data").path("imported").asInt());
+    }
+
+    private ResponseEntity<JsonNode> login(String name) {
+        return rest.postForEntity("/users/login", Map.of("name", name, "password", PASSWORD), JsonNode.class);
+    }
+}
@@ -0,0 +1,95 @@
+package com.lujx3419.usersystem.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Map;
+
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpMethod;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.lujx3419.usersystem.model.User;
+import com.lujx3419.usersystem.support.EndpointBudget;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * What a write drops from the second-level cache once it commits.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+class UserCacheTests {
+
+    private static final String PASSWORD = "cache-password";
+
+    @Autowired
+    private TestRestTemplate rest;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void updateEvictsOnlyTheUpdatedUser() {
+        EndpointBudget endpoints = new EndpointBudget(rest, meterRegistry);
+        JsonNode reader = register(endpoints, "cache_reader");
+        JsonNode writer = register(endpoints, "cache_writer");
+        Cache cache = entityManagerFactory.unwrap(SessionFactory.class).getCache();
+        long readerId = reader.path("user").path("id").asLong();
+        long writerId = writer.path("user").path("id").asLong();
+        assertTrue(cache.containsEntity(User.class, readerId));
+        assertTrue(cache.containsEntity(User.class, writerId));
+
+        endpoints.call(HttpMethod.PUT, "/users/{id}", writer.path("token").asText(),
+                Map.of("name", "cache_writer", "age", 30), writerId);
+
+        assertTrue(cache.containsEntity(User.class, readerId));
+        assertFalse(cache.containsEntity(User.class, writerId));
+    }
+
+    @Test
+    void renameDropsTheOldName() {
+        EndpointBudget endpoints = new EndpointBudget(rest, meterRegistry);
+        JsonNode session = register(endpoints, "cache_old_name");
+
+        endpoints.call(HttpMethod.PUT, "/users/{id}", session.path("token").asText(),
+                Map.of("name", "cache_new_name", "age", 30), session.path("user").path("id").asLong());
+
+        assertEquals("Username does not exist!", rest.postForObject("/users/login",
+                Map.of("name", "cache_old_name", "password", PASSWORD), JsonNode.class).path("message").asText());
+        endpoints.call(HttpMethod.POST, "/users/login", null, Map.of("name", "cache_new_name", "password", PASSWORD));
+    }
+
+    @Test
+    void adminRenameDropsTheOldName() {
+        EndpointBudget endpoints = new EndpointBudget(rest, meterRegistry);
+        endpoints.call(HttpMethod.POST, "/users/register/admin", null,
+                Map.of("name", "cache_admin", "password", PASSWORD, "adminCode", "ADMIN123"));
+        String adminToken = endpoints.call(HttpMethod.POST, "/users/login", null,
+                Map.of("name", "cache_admin", "password", PASSWORD)).path("token").asText();
+        long id = register(endpoints, "cache_admin_old").path("user").path("id").asLong();
+
+        endpoints.call(HttpMethod.PATCH, "/users/{id}", adminToken, Map.of("name", "cache_admin_new", "version", 0), id);
+
+        assertEquals("Username does not exist!", rest.postForObject("/users/login",
+                Map.of("name", "cache_admin_old", "password", PASSWORD), JsonNode.class).path("message").asText());
+        endpoints.call(HttpMethod.POST, "/users/login", null, Map.of("name", "cache_admin_new", "password", PASSWORD));
+    }
+
+    // Registers and logs in, which reads the user through the second-level cache
+    private static JsonNode register(EndpointBudget endpoints, String name) {
+        endpoints.call(HttpMethod.POST, "/users/register", null, Map.of("name", name, "password", PASSWORD));
+        return endpoints.call(HttpMethod.POST, "/users/login", null, Map.of("name", name, "password", PASSWORD));
+    }
+}
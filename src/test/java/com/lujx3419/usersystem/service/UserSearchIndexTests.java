@@ -0,0 +1,169 @@
+package com.lujx3419.usersystem.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.lujx3419.usersystem.common.ServiceUnavailableException;
+import com.lujx3419.usersystem.dto.response.UserResponse;
+import com.lujx3419.usersystem.repository.UserRepository;
+
+/**
+ * The index is fed directly, as its background thread would after reading the database.
+ */
+class UserSearchIndexTests {
+
+    private final UserSearchIndex index = new UserSearchIndex();
+
+    @Test
+    void matchesPrefixIgnoringCaseAndAgeRangeInNameOrder() {
+        index.load(rows(user(1, "alice", 30), user(2, "Albert", 25), user(3, "bob", 30),
+                user(4, "alina", null), user(5, "ALF", 200)));
+
+        assertEquals(List.of(2L, 5L, 1L, 4L), index.search("al", null, null, 0, 10));
+        assertEquals(List.of(2L, 1L), index.search("AL", 20, 40, 0, 10));
+        assertEquals(List.of(1L, 3L), index.search(null, 30, 30, 0, 10));
+        assertEquals(List.of(5L), index.search("", 100, null, 0, 10));
+        assertEquals(List.of(1L), index.search("al", null, null, 2, 1));
+        assertEquals(List.of(), index.search("c", null, null, 0, 10));
+    }
+
+    @Test
+    void appliesChangesOnTopOfTheSnapshot() {
+        index.load(rows(user(1, "alice", 30), user(2, "bob", 40), user(3, "carol", 50)));
+
+        // Rename with a new age, delete, create
+        index.apply(List.of(1L, 2L, 4L), List.of(user(1, "zoe", 31), user(4, "adam", 30)));
+
+        assertEquals(List.of(4L, 3L, 1L), index.search(null, null, null, 0, 10));
+        assertEquals(List.of(4L, 1L), index.search(null, 30, 31, 0, 10));
+        assertEquals(List.of(), index.search("alice", null, null, 0, 10));
+        assertEquals(List.of(4L), index.search("a", null, null, 0, 10));
+    }
+
+    @Test
+    void agreesWithAFullScanAcrossMerges() {
+        Random random = new Random(42);
+        Map<Long, UserResponse> users = new HashMap<>();
+        for (long id = 1; id <= 5000; id++) {
+            users.put(id, randomUser(random, id));
+        }
+        index.load(new ArrayList<>(users.values().stream().map(UserSearchIndex::row).toList()));
+
+        // Enough changes for the overlay to be merged into the snapshot more than once
+        for (int batch = 0; batch < 20; batch++) {
+            List<Long> ids = new ArrayList<>();
+            List<UserResponse> changed = new ArrayList<>();
+            for (int i = 0; i < 500; i++) {
+                long id = 1 + random.nextInt(6000);
+                ids.add(id);
+                if (random.nextInt(4) == 0) {
+                    users.remove(id);
+                } else {
+                    users.put(id, randomUser(random, id));
+                }
+            }
+            ids.forEach(id -> {
+                if (users.containsKey(id)) {
+                    changed.add(users.get(id));
+                }
+            });
+            index.apply(ids, changed);
+
+            for (String prefix : List.of("", "a", "b", "ca", "D")) {
+                assertEquals(scan(users, prefix, null, null), index.search(prefix, null, null, 0, 50));
+                assertEquals(scan(users, prefix, 20, 30), index.search(prefix, 20, 30, 0, 50));
+                assertEquals(scan(users, prefix, null, 10), index.search(prefix, null, 10, 0, 50));
+            }
+        }
+    }
+
+    @Test
+    void unavailableUntilLoaded() {
+        assertThrows(ServiceUnavailableException.class, () -> index.search("a", null, null, 0, 10));
+    }
+
+    @Test
+    void retriesAFailedLoadWithoutHoldingChangesMeanwhile() throws InterruptedException {
+        AtomicInteger loads = new AtomicInteger();
+        ReflectionTestUtils.setField(index, "userRepository", repository(loads));
+        ReflectionTestUtils.setField(index, "transactionTemplate", new TransactionTemplate() {
+            @Override
+            public <T> T execute(TransactionCallback<T> action) {
+                return action.doInTransaction(null);
+            }
+        });
+
+        index.start();
+        index.onUserChanged(UserChangedEvent.created(3L, "carol"));
+        for (int i = 0; i < 100 && !index.isLoaded(); i++) {
+            Thread.sleep(50);
+        }
+
+        assertTrue(index.isLoaded());
+        assertEquals(2, loads.get());
+        assertEquals(2, index.rows());
+        assertEquals(List.of(1L, 2L), index.search(null, null, null, 0, 10));
+        index.shutdown();
+    }
+
+    // Repository stub whose first full read fails
+    private static UserRepository repository(AtomicInteger loads) {
+        return (UserRepository) Proxy.newProxyInstance(UserRepository.class.getClassLoader(),
+                new Class<?>[] {UserRepository.class}, (proxy, method, args) -> {
+                    if (method.getName().equals("streamAllResponses")) {
+                        if (loads.incrementAndGet() == 1) {
+                            throw new IllegalStateException("database unavailable");
+                        }
+                        return Stream.of(user(1, "alice", 30), user(2, "bob", 40));
+                    }
+                    if (method.getName().equals("findResponsesByIdIn")) {
+                        return List.of(user(3, "carol", 50));
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    private static List<Long> scan(Map<Long, UserResponse> users, String prefix, Integer minAge, Integer maxAge) {
+        boolean ageRange = minAge != null || maxAge != null;
+        return users.values().stream()
+                .filter(user -> user.getName().toLowerCase(Locale.ROOT).startsWith(prefix.toLowerCase(Locale.ROOT)))
+                .filter(user -> !ageRange || (user.getAge() != null
+                        && (minAge == null || user.getAge() >= minAge) && (maxAge == null || user.getAge() <= maxAge)))
+                .sorted(Comparator.comparing((UserResponse user) -> user.getName().toLowerCase(Locale.ROOT))
+                        .thenComparing(UserResponse::getId))
+                .limit(50)
+                .map(UserResponse::getId)
+                .toList();
+    }
+
+    private static UserResponse randomUser(Random random, long id) {
+        String name = (char) ('a' + random.nextInt(4)) + "" + (char) ('a' + random.nextInt(4)) + "_" + id;
+        Integer age = random.nextInt(10) == 0 ? null : random.nextInt(100);
+        return user(id, random.nextBoolean() ? name : name.toUpperCase(Locale.ROOT), age);
+    }
+
+    private static UserResponse user(long id, String name, Integer age) {
+        return new UserResponse(id, name, age, 0L);
+    }
+
+    private static List<UserSearchIndex.Row> rows(UserResponse... users) {
+        return new ArrayList<>(Stream.of(users).map(UserSearchIndex::row).toList());
+    }
+}
@@ -0,0 +1,157 @@
+package com.lujx3419.usersystem.support;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+import java.time.Duration;
+
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Calls an endpoint of the running application and checks it against a budget: the number
+ * of SQL statements it issued, read from the {@code usersystem.db.statements} metric, and
+ * a coarse bound on its latency.
+ */
+public class EndpointBudget {
+
+    // How long to wait for an asynchronous request to be recorded after its response arrived
+    private static final Duration RECORDING_TIMEOUT = Duration.ofSeconds(5);
+
+    private final TestRestTemplate rest;
+    private final MeterRegistry meterRegistry;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    public EndpointBudget(TestRestTemplate rest, MeterRegistry meterRegistry) {
+        this.rest = rest;
+        this.meterRegistry = meterRegistry;
+    }
+
+    public record Budget(int maxStatements, Duration maxLatency) {
+    }
+
+    public static Budget budget(int maxStatements, Duration maxLatency) {
+        return new Budget(maxStatements, maxLatency);
+    }
+
+    /**
+     * Call the endpoint without checking a budget, for test setup.
+     *
+     * @return the {@code data} of the successful {@code ApiResponse}
+     */
+    public JsonNode call(HttpMethod method, String uriPattern, String token, Object body, Object... uriVariables) {
+        return data(exchange(method, uriPattern, token, body, new HttpHeaders(), uriVariables));
+    }
+
+    /**
+     * Call the endpoint and fail if it is unsuccessful or over budget.
+     *
+     * @param uriPattern the mapping pattern, e.g. {@code /users/{id}}, expanded with the variables
+     */
+    public JsonNode check(Budget budget, HttpMethod method, String uriPattern, String token, Object body,
+                          Object... uriVariables) {
+        Recording before = recording(method, uriPattern);
+        long start = System.nanoTime();
+        ResponseEntity<String> response = exchange(method, uriPattern, token, body, new HttpHeaders(), uriVariables);
+        Duration latency = Duration.ofNanos(System.nanoTime() - start);
+        JsonNode data = data(response);
+        checkBudget(budget, method, uriPattern, before, latency);
+        return data;
+    }
+
+    /**
+     * GET the endpoint once and return the ETag of its response, for test setup.
+     */
+    public String eTag(String uriPattern, String token, Object... uriVariables) {
+        ResponseEntity<String> response = exchange(HttpMethod.GET, uriPattern, token, null, new HttpHeaders(), uriVariables);
+        data(response);
+        assertNotNull(response.getHeaders().getETag(), "No ETag on " + uriPattern);
+        return response.getHeaders().getETag();
+    }
+
+    /**
+     * GET the endpoint with the given If-None-Match and fail unless it is answered 304 within budget.
+     */
+    public void checkNotModified(Budget budget, String uriPattern, String token, String eTag, Object... uriVariables) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setIfNoneMatch(eTag);
+        Recording before = recording(HttpMethod.GET, uriPattern);
+        long start = System.nanoTime();
+        ResponseEntity<String> response = exchange(HttpMethod.GET, uriPattern, token, null, headers, uriVariables);
+        Duration latency = Duration.ofNanos(System.nanoTime() - start);
+        assertEquals(HttpStatus.NOT_MODIFIED, response.getStatusCode(), "Unexpected response: " + response.getBody());
+        assertEquals(eTag, response.getHeaders().getETag());
+        checkBudget(budget, HttpMethod.GET, uriPattern, before, latency);
+    }
+
+    private void checkBudget(Budget budget, HttpMethod method, String uriPattern, Recording before, Duration latency) {
+        Recording after = awaitNextRecording(method, uriPattern, before);
+        long statements = Math.round(after.total() - before.total());
+        String call = method + " " + uriPattern;
+        assertTrue(statements <= budget.maxStatements(),
+                call + " issued " + statements + " SQL statements, budget is " + budget.maxStatements());
+        assertTrue(latency.compareTo(budget.maxLatency()) <= 0,
+                call + " took " + latency.toMillis() + " ms, budget is " + budget.maxLatency().toMillis() + " ms");
+    }
+
+    private ResponseEntity<String> exchange(HttpMethod method, String uriPattern, String token, Object body,
+                                            HttpHeaders headers, Object... uriVariables) {
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        if (token != null) {
+            headers.setBearerAuth(token);
+        }
+        return rest.exchange(uriPattern, method, new HttpEntity<>(body, headers), String.class, uriVariables);
+    }
+
+    private JsonNode data(ResponseEntity<String> response) {
+        try {
+            JsonNode body = objectMapper.readTree(response.getBody());
+            assertEquals(200, body.path("code").asInt(), "Unsuccessful response: " + response.getBody());
+            return body.path("data");
+        } catch (Exception e) {
+            throw new AssertionError("Unexpected response " + response.getStatusCode() + ": " + response.getBody(), e);
+        }
+    }
+
+    private Recording awaitNextRecording(HttpMethod method, String uriPattern, Recording before) {
+        long deadline = System.nanoTime() + RECORDING_TIMEOUT.toNanos();
+        while (System.nanoTime() < deadline) {
+            Recording current = recording(method, uriPattern);
+            if (current.count() > before.count()) {
+                return current;
+            }
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        return fail("No statement count was recorded for " + method + " " + uriPattern);
+    }
+
+    private Recording recording(HttpMethod method, String uriPattern) {
+        String path = uriPattern.contains("?") ? uriPattern.substring(0, uriPattern.indexOf('?')) : uriPattern;
+        DistributionSummary summary = meterRegistry.find("usersystem.db.statements")
+                .tag("method", method.name())
+                .tag("uri", path)
+                .summary();
+        return summary == null ? new Recording(0, 0) : new Recording(summary.count(), summary.totalAmount());
+    }
+
+    private record Recording(long count, double total) {
+    }
+}